@@ -0,0 +1,20 @@
+import java.util.Arrays;
+
+// packs the mines into row bitsets and counts them a word at a time, as square boards do
+public class BitCountWorkload extends MineCountWorkload {
+	private long[] rowBits;
+
+	@Override
+	public void setup(String size) {
+		super.setup(size);
+		rowBits = new long[rows * BitBoard.getWordsPerRow(columns)];
+	}
+
+	@Override
+	public Object run() {
+		Arrays.fill(rowBits, 0);
+		for (int mine : mines) BitBoard.set(rowBits, columns, mine);
+		BitBoard.countAdjacent(rowBits, rows, columns, counts);
+		return counts;
+	}
+}
@@ -0,0 +1,21 @@
+import benchmarks.Workload;
+
+// a workload on a board of the size it is given as ROWSxCOLUMNS/MINES
+public abstract class BoardWorkload implements Workload {
+	protected static final long SEED = 42; // the same layout for every run
+
+	protected Board board;
+	protected int row, col; // first click, in the middle of the board
+
+	@Override
+	public void setup(String size) {
+		String[] parts = size.split("[x/]");
+		board = new Board(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+				Integer.parseInt(parts[2]), SEED);
+		row = board.getRows() / 2;
+		col = board.getColumns() / 2;
+	}
+
+	@Override
+	public void prepare() {}
+}
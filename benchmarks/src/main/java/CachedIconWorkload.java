@@ -0,0 +1,15 @@
+// gets sprites that are already cached, as when switching back to a theme or zoom level
+public class CachedIconWorkload extends IconLoadWorkload {
+	private final SpriteAtlas spriteAtlas = new SpriteAtlas();
+
+	@Override
+	public void setup(String icons) {
+		super.setup(icons);
+		spriteAtlas.get(iconSet, tileSize);
+	}
+
+	@Override
+	public Object run() {
+		return spriteAtlas.get(iconSet, tileSize);
+	}
+}
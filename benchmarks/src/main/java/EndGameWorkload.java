@@ -0,0 +1,39 @@
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+
+// shows every mine on a lost board and paints the visible part of it, as endGame does
+public class EndGameWorkload extends BoardWorkload {
+	private static final int TILE_SIZE = 32;
+	// boards larger than this are scrolled, so only this much of them is painted
+	private static final int VIEWPORT_WIDTH = 1600, VIEWPORT_HEIGHT = 900;
+
+	protected BoardView boardView;
+	protected Graphics g;
+
+	@Override
+	public void setup(String size) {
+		super.setup(size);
+		// play until a mine is revealed
+		board.reveal(row, col);
+		for (int cell = 0; cell < board.getRows() * board.getColumns(); cell++) {
+			if (board.isExploded()) break;
+			board.reveal(board.getRow(cell), board.getColumn(cell));
+		}
+
+		boardView = new BoardView();
+		boardView.setSprites(new SpriteAtlas().get("default", TILE_SIZE));
+		boardView.setBoard(board);
+		boardView.setSize(boardView.getPreferredSize());
+		BufferedImage frame = new BufferedImage(Math.min(boardView.getWidth(), VIEWPORT_WIDTH),
+				Math.min(boardView.getHeight(), VIEWPORT_HEIGHT), BufferedImage.TYPE_INT_RGB);
+		g = frame.getGraphics();
+		g.setClip(0, 0, frame.getWidth(), frame.getHeight());
+	}
+
+	@Override
+	public Object run() {
+		boardView.setGameOver(true);
+		boardView.paint(g);
+		return boardView;
+	}
+}
@@ -0,0 +1,20 @@
+// decodes and scales the sprites of an icon set given as SET@SIZE, as on the first start
+public class IconLoadWorkload implements benchmarks.Workload {
+	protected String iconSet;
+	protected int tileSize;
+
+	@Override
+	public void setup(String icons) {
+		String[] parts = icons.split("@");
+		iconSet = parts[0];
+		tileSize = Integer.parseInt(parts[1]);
+	}
+
+	@Override
+	public void prepare() {}
+
+	@Override
+	public Object run() {
+		return new SpriteAtlas().get(iconSet, tileSize);
+	}
+}
@@ -0,0 +1,39 @@
+import benchmarks.Workload;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// counting the mines next to every cell of a board of the size it is given as
+// ROWSxCOLUMNS/MINES, for a fixed random layout
+public abstract class MineCountWorkload implements Workload {
+	private static final long SEED = 42; // the same layout for every run
+
+	protected int rows, columns;
+	protected int[] mines;
+	protected byte[] counts;
+
+	@Override
+	public void setup(String size) {
+		String[] parts = size.split("[x/]");
+		rows = Integer.parseInt(parts[0]);
+		columns = Integer.parseInt(parts[1]);
+		counts = new byte[rows * columns];
+
+		// partial Fisher-Yates shuffle of every cell
+		int[] cells = new int[rows * columns];
+		for (int i = 0; i < cells.length; i++) cells[i] = i;
+		SplittableRandom random = new SplittableRandom(SEED);
+		mines = new int[Integer.parseInt(parts[2])];
+		for (int m = 0; m < mines.length; m++) {
+			final int j = m + random.nextInt(cells.length - m);
+			mines[m] = cells[j];
+			cells[j] = cells[m];
+		}
+	}
+
+	// the counts are written over a cleared board, as they are after Board.reset
+	@Override
+	public void prepare() {
+		Arrays.fill(counts, (byte)0);
+	}
+}
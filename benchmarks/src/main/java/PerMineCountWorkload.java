@@ -0,0 +1,16 @@
+// adds every mine to its 8 neighbours, as boards other than square ones do
+public class PerMineCountWorkload extends MineCountWorkload {
+	@Override
+	public Object run() {
+		for (int mine : mines) {
+			counts[mine] = Board.MINE;
+			final int row = mine / columns, col = mine % columns;
+			for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+				for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, columns - 1); c++) {
+					if (counts[r * columns + c] != Board.MINE) counts[r * columns + c]++;
+				}
+			}
+		}
+		return counts;
+	}
+}
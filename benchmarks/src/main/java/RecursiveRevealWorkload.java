@@ -0,0 +1,40 @@
+import java.util.Arrays;
+
+// the first reveal with the original recursive expand, on its own copy of the cell states,
+// for comparison with the iterative flood fill in Board
+public class RecursiveRevealWorkload extends RevealWorkload {
+	private byte[] states;
+
+	@Override
+	public void setup(String size) {
+		super.setup(size);
+		states = new byte[board.getRows() * board.getColumns()];
+	}
+
+	// the same restore as the iterative reveal, and the copy of the states cleared
+	@Override
+	public void prepare() {
+		super.prepare();
+		Arrays.fill(states, Board.HIDDEN);
+	}
+
+	@Override
+	public Object run() {
+		expand(row, col);
+		return states;
+	}
+
+	private void expand(final int row, final int col) {
+		if (states[board.index(row, col)] != Board.HIDDEN) return;
+
+		states[board.index(row, col)] = Board.REVEALED;
+		if (board.getCount(row, col) == 0) {
+			for (int r = row - 1; r <= row + 1; r++) {
+				for (int c = col - 1; c <= col + 1; c++) {
+					if (r < 0 || c < 0 || r >= board.getRows() || c >= board.getColumns()) continue;
+					expand(r, c);
+				}
+			}
+		}
+	}
+}
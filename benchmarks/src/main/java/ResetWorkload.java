@@ -0,0 +1,12 @@
+// pressing reset after a lost game: the board is cleared and its visible part repainted
+//
+// clearing costs the same whatever the board holds, so the game is only lost once
+public class ResetWorkload extends EndGameWorkload {
+	@Override
+	public Object run() {
+		board.reset(SEED);
+		boardView.setBoard(board);
+		boardView.paint(g);
+		return boardView;
+	}
+}
@@ -0,0 +1,13 @@
+// the first reveal, flood filling the opening on a board with its mines already placed
+public class RevealWorkload extends BoardWorkload {
+	@Override
+	public void prepare() {
+		board.reset(SEED);
+		board.setMines(row, col);
+	}
+
+	@Override
+	public Object run() {
+		return board.reveal(row, col);
+	}
+}
@@ -0,0 +1,13 @@
+// places the mines for the first click on a cleared board
+public class SetMinesWorkload extends BoardWorkload {
+	@Override
+	public void prepare() {
+		board.reset(SEED);
+	}
+
+	@Override
+	public Object run() {
+		board.setMines(row, col);
+		return board;
+	}
+}
@@ -0,0 +1,13 @@
+// checks for a win in the middle of a game
+public class WinCheckWorkload extends BoardWorkload {
+	@Override
+	public void setup(String size) {
+		super.setup(size);
+		board.reveal(row, col);
+	}
+
+	@Override
+	public Object run() {
+		return board.isWin();
+	}
+}
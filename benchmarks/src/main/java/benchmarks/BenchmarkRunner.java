@@ -0,0 +1,28 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// runs the benchmarks with the GC profiler, so allocation rates are always reported, and saves
+// the results as JSON that can be compared between commits
+//
+// usage: java -jar benchmarks/target/benchmarks.jar [JMH options]
+public class BenchmarkRunner {
+	private static final String RESULTS = "jmh-result.json";
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine)
+				.addProfiler(GCProfiler.class);
+		// options given on the command line win
+		if (!commandLine.getResultFormat().hasValue()) options.resultFormat(ResultFormatType.JSON);
+		if (!commandLine.getResult().hasValue()) options.result(RESULTS);
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,107 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// engine hot paths on the preset difficulties and large custom boards
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+	@State(Scope.Thread)
+	public abstract static class BoardState {
+		// beginner, intermediate, expert, then large custom boards
+		@Param({"9x9/10", "16x16/40", "16x30/99", "200x200/6000", "1000x1000/150000"})
+		public String size;
+
+		protected Workload workload;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			workload = Workload.create(getWorkload(), size);
+		}
+
+		protected abstract String getWorkload();
+	}
+
+	public static class SetMinesState extends BoardState {
+		@Override
+		protected String getWorkload() {
+			return "SetMinesWorkload";
+		}
+	}
+
+	public static class RevealState extends BoardState {
+		@Override
+		protected String getWorkload() {
+			return "RevealWorkload";
+		}
+	}
+
+	public static class WinCheckState extends BoardState {
+		@Override
+		protected String getWorkload() {
+			return "WinCheckWorkload";
+		}
+	}
+
+	public static class EndGameState extends BoardState {
+		@Override
+		protected String getWorkload() {
+			return "EndGameWorkload";
+		}
+	}
+
+	public static class ResetState extends BoardState {
+		@Override
+		protected String getWorkload() {
+			return "ResetWorkload";
+		}
+	}
+
+	// mine placement and reveal change the board, so it is restored inside every call: a
+	// per-invocation setup costs more than the call itself on small boards. The restore
+	// benchmarks time the restore alone, to subtract
+
+	@Benchmark
+	public Object setMines(SetMinesState state) {
+		state.workload.prepare();
+		return state.workload.run();
+	}
+
+	@Benchmark
+	public Object setMinesRestore(SetMinesState state) {
+		state.workload.prepare();
+		return state.workload;
+	}
+
+	@Benchmark
+	public Object reveal(RevealState state) {
+		state.workload.prepare();
+		return state.workload.run();
+	}
+
+	@Benchmark
+	public Object revealRestore(RevealState state) {
+		state.workload.prepare();
+		return state.workload;
+	}
+
+	@Benchmark
+	public Object isWin(WinCheckState state) {
+		return state.workload.run();
+	}
+
+	@Benchmark
+	public Object endGame(EndGameState state) {
+		return state.workload.run();
+	}
+
+	@Benchmark
+	public Object reset(ResetState state) {
+		return state.workload.run();
+	}
+}
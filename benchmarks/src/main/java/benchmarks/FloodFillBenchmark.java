@@ -0,0 +1,80 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// the iterative flood fill against the original recursive expand, on the first reveal
+//
+// both change the board, so it is restored inside every call (a per-invocation setup would cost
+// more than a reveal on small boards). The restore benchmarks time each restore alone, to
+// subtract
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+// the recursion is as deep as the opening is large, this lets it finish up to 300x300
+@Fork(value = 1, jvmArgsAppend = "-Xss64m")
+public class FloodFillBenchmark {
+	@State(Scope.Thread)
+	public static class IterativeState {
+		// beginner, expert, a board with 1% mines and a large opening, then one with 0.1% mines
+		// and an opening of millions of cells
+		@Param({"9x9/10", "16x30/99", "300x300/900", "2000x2000/4000"})
+		public String size;
+
+		private Workload workload;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			workload = Workload.create("RevealWorkload", size);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class RecursiveState {
+		// the same sizes, the recursion overflows even the larger stack on 2000x2000 and the
+		// setup reports that instead of a score
+		@Param({"9x9/10", "16x30/99", "300x300/900", "2000x2000/4000"})
+		public String size;
+
+		private Workload workload;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			workload = Workload.create("RecursiveRevealWorkload", size);
+			workload.prepare();
+			try {
+				workload.run();
+			} catch (StackOverflowError e) {
+				workload = null;
+				throw new IllegalStateException("The recursive expand overflows the stack on "
+						+ size, e);
+			}
+		}
+	}
+
+	@Benchmark
+	public Object iterative(IterativeState state) {
+		state.workload.prepare();
+		return state.workload.run();
+	}
+
+	@Benchmark
+	public Object iterativeRestore(IterativeState state) {
+		state.workload.prepare();
+		return state.workload;
+	}
+
+	@Benchmark
+	public Object recursive(RecursiveState state) {
+		state.workload.prepare();
+		return state.workload.run();
+	}
+
+	@Benchmark
+	public Object recursiveRestore(RecursiveState state) {
+		state.workload.prepare();
+		return state.workload;
+	}
+}
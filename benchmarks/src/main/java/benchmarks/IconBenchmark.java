@@ -0,0 +1,37 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// loading the sprites of a theme at a tile size, from the image files and from the cache
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IconBenchmark {
+	@State(Scope.Thread)
+	public static class IconState {
+		@Param({"default@16", "default@32", "default@64", "monochrome@32", "dark@32"})
+		public String icons;
+
+		private Workload load, cached;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			load = Workload.create("IconLoadWorkload", icons);
+			cached = Workload.create("CachedIconWorkload", icons);
+		}
+	}
+
+	@Benchmark
+	public Object load(IconState state) {
+		return state.load.run();
+	}
+
+	@Benchmark
+	public Object cached(IconState state) {
+		return state.cached.run();
+	}
+}
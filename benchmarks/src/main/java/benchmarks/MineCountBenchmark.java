@@ -0,0 +1,60 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// adjacency counts from row bitsets against adding each mine to its neighbours, at 1%, 20% and
+// 50% mines on a million and nine million cells
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MineCountBenchmark {
+	@State(Scope.Thread)
+	public abstract static class CountState {
+		@Param({"1000x1000/10000", "1000x1000/200000", "1000x1000/500000", "3000x3000/90000",
+				"3000x3000/1800000", "3000x3000/4500000"})
+		public String size;
+
+		protected Workload workload;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			workload = Workload.create(getWorkload(), size);
+		}
+
+		// the counts are cleared before every call
+		@Setup(Level.Invocation)
+		public void prepare() {
+			workload.prepare();
+		}
+
+		protected abstract String getWorkload();
+	}
+
+	public static class PerMineState extends CountState {
+		@Override
+		protected String getWorkload() {
+			return "PerMineCountWorkload";
+		}
+	}
+
+	public static class BitSlicedState extends CountState {
+		@Override
+		protected String getWorkload() {
+			return "BitCountWorkload";
+		}
+	}
+
+	@Benchmark
+	public Object perMine(PerMineState state) {
+		return state.workload.run();
+	}
+
+	@Benchmark
+	public Object bitSliced(BitSlicedState state) {
+		return state.workload.run();
+	}
+}
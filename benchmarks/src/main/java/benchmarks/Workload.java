@@ -0,0 +1,24 @@
+package benchmarks;
+
+// one measured operation on the game classes, which are in the default package and can only be
+// reached from a named package through an interface they implement
+public interface Workload {
+	// called once per trial, with a board size ("ROWSxCOLUMNS/MINES") or icon set ("SET@SIZE")
+	void setup(String parameter);
+
+	// called before every run by operations that change what they measure
+	void prepare();
+
+	Object run();
+
+	static Workload create(String className, String parameter) {
+		try {
+			Workload workload = (Workload)Class.forName(className).getDeclaredConstructor()
+					.newInstance();
+			workload.setup(parameter);
+			return workload;
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Could not create " + className, e);
+		}
+	}
+}
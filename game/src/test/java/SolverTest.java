@@ -0,0 +1,56 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+// the rules alone have to solve the patterns every player learns
+class SolverTest {
+	@Test
+	void oneTwoOne() {
+		assertRulesSolve("MSM");
+	}
+
+	@Test
+	void oneTwoTwoOne() {
+		assertRulesSolve("SMMS");
+	}
+
+	@Test
+	void oneOneOneOne() {
+		assertRulesSolve("MSSM");
+	}
+
+	// hidden top row with mines where the mask has an M, revealed numbers under it
+	private static void assertRulesSolve(String hidden) {
+		final int columns = hidden.length();
+		final long[] mineBits = {0};
+		final byte[] states = new byte[2 * columns];
+		int mineCount = 0;
+		for (int c = 0; c < columns; c++) {
+			if (hidden.charAt(c) == 'M') {
+				mineBits[0] |= 1L << c;
+				mineCount++;
+			}
+			states[columns + c] = Board.REVEALED;
+		}
+		Board board = new Board(2, columns, mineCount, 0);
+		board.restore(mineBits, states);
+
+		Solver.Result result = new Solver(board, null).deduceRules();
+		assertArrayEquals(cells(hidden, 'S'), sorted(result.safe), "safe cells of " + hidden);
+		assertArrayEquals(cells(hidden, 'M'), sorted(result.mines), "mines of " + hidden);
+	}
+
+	// the cells of the hidden row marked kind, in order
+	private static int[] cells(String hidden, char kind) {
+		return IntStream.range(0, hidden.length()).filter(c -> hidden.charAt(c) == kind).toArray();
+	}
+
+	private static int[] sorted(int[] cells) {
+		int[] copy = cells.clone();
+		Arrays.sort(copy);
+		return copy;
+	}
+}
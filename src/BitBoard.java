@@ -0,0 +1,116 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+// mine layouts of square boards packed into one bitset per row, and the adjacency counts
+// computed from them a whole 64 cell word at a time
+//
+// row r takes words r * wordsPerRow up to (r + 1) * wordsPerRow, column c is bit c % 64 of its
+// word c / 64, and the bits past the last column are always 0
+public class BitBoard {
+	// 8 counts written to the byte array in one store, column order matches little endian
+	private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class,
+			ByteOrder.LITTLE_ENDIAN);
+
+	// byte k of SPREAD[b] is bit k of b
+	private static final long[] SPREAD = new long[256];
+	static {
+		for (int b = 0; b < 256; b++) {
+			for (int k = 0; k < 8; k++) SPREAD[b] |= (long)(b >>> k & 1) << (k << 3);
+		}
+	}
+
+	public static int getWordsPerRow(int columns) {
+		return (columns + 63) >>> 6;
+	}
+
+	public static void set(long[] bits, int columns, int cell) {
+		final int row = cell / columns, col = cell % columns;
+		bits[row * getWordsPerRow(columns) + (col >>> 6)] |= 1L << col;
+	}
+
+	// repacks a bitset of the whole board (bit i % 64 of word i / 64) into rows
+	public static void fromCells(long[] cellBits, int rows, int columns, long[] bits) {
+		final int wordsPerRow = getWordsPerRow(columns);
+		for (int r = 0; r < rows; r++) {
+			for (int w = 0; w < wordsPerRow; w++) {
+				final long first = (long)r * columns + ((long)w << 6);
+				final int i = (int)(first >>> 6), shift = (int)(first & 63);
+				long word = cellBits[i] >>> shift;
+				if (shift != 0 && i + 1 < cellBits.length) word |= cellBits[i + 1] << -shift;
+				final int left = columns - (w << 6);
+				if (left < 64) word &= (1L << left) - 1;
+				bits[r * wordsPerRow + w] = word;
+			}
+		}
+	}
+
+	// writes the number of adjacent mines of every cell, or Board.MINE for a mine, into counts,
+	// which must be all 0
+	//
+	// each of the 8 neighbours is the row above, the row or the row below shifted by a column,
+	// and the 8 bits of every cell are added by carry-save adders into 4 bit planes, so a word of
+	// 64 cells takes a few dozen long operations however many mines it has
+	public static void countAdjacent(long[] bits, int rows, int columns, byte[] counts) {
+		final int wordsPerRow = getWordsPerRow(columns);
+		for (int r = 0; r < rows; r++) {
+			final int row = r * wordsPerRow;
+			final int above = r > 0 ? row - wordsPerRow : -1;
+			final int below = r < rows - 1 ? row + wordsPerRow : -1;
+			for (int w = 0; w < wordsPerRow; w++) {
+				final boolean first = w == 0, last = w == wordsPerRow - 1;
+
+				// row above: columns to the left, straight above and to the right
+				long a = 0, aWest = 0, aEast = 0;
+				if (above >= 0) {
+					a = bits[above + w];
+					aWest = a << 1 | (first ? 0 : bits[above + w - 1] >>> 63);
+					aEast = a >>> 1 | (last ? 0 : bits[above + w + 1] << 63);
+				}
+				final long m = bits[row + w];
+				final long west = m << 1 | (first ? 0 : bits[row + w - 1] >>> 63);
+				final long east = m >>> 1 | (last ? 0 : bits[row + w + 1] << 63);
+				long b = 0, bWest = 0, bEast = 0;
+				if (below >= 0) {
+					b = bits[below + w];
+					bWest = b << 1 | (first ? 0 : bits[below + w - 1] >>> 63);
+					bEast = b >>> 1 | (last ? 0 : bits[below + w + 1] << 63);
+				}
+
+				// three full adders and a half adder for the ones, then the four carries
+				final long aXor = aWest ^ a, bXor = bWest ^ b;
+				final long aSum = aXor ^ aEast, aCarry = aWest & a | aEast & aXor;
+				final long bSum = bXor ^ bEast, bCarry = bWest & b | bEast & bXor;
+				final long sideSum = west ^ east, sideCarry = west & east;
+				final long sumXor = aSum ^ bSum;
+				final long ones = sumXor ^ sideSum, onesCarry = aSum & bSum | sideSum & sumXor;
+
+				final long carryXor = aCarry ^ bCarry;
+				final long carrySum = carryXor ^ sideCarry;
+				final long fours1 = aCarry & bCarry | sideCarry & carryXor;
+				final long twos = carrySum ^ onesCarry, fours2 = carrySum & onesCarry;
+				final long fours = fours1 ^ fours2, eights = fours1 & fours2;
+				if ((ones | twos | fours | m) == 0) continue; // the counts are already 0
+
+				// 8 cells at a time, the last few columns of a row one at a time
+				final int base = r * columns + (w << 6);
+				final int cells = Math.min(64, columns - (w << 6));
+				for (int k = 0; k < cells; k += 8) {
+					final long value = SPREAD[(int)(ones >>> k) & 255] |
+							SPREAD[(int)(twos >>> k) & 255] << 1 |
+							SPREAD[(int)(fours >>> k) & 255] << 2 |
+							SPREAD[(int)(eights >>> k) & 255] << 3 |
+							SPREAD[(int)(m >>> k) & 255] * 0xFF;
+					if (value == 0) continue;
+					if (cells - k >= 8) {
+						LONGS.set(counts, base + k, value);
+					} else {
+						for (int j = 0; j < cells - k; j++) {
+							counts[base + k + j] = (byte)(value >>> (j << 3));
+						}
+					}
+				}
+			}
+		}
+	}
+}
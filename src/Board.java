@@ -0,0 +1,468 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class Board {
+	// recount the counters after every move and fail if they drift, for tests
+	private static final boolean CHECK_COUNTERS = Boolean.getBoolean("minesweeper.checkCounters");
+
+	// cell states
+	public static final byte HIDDEN = 0;
+	public static final byte REVEALED = 1;
+	public static final byte FLAGGED = 2;
+	public static final byte UNKNOWN = 3;
+
+	// adjacency count stored for a mine
+	public static final byte MINE = -1;
+
+	private final int rows, columns, mines;
+	private final Topology topology;
+	// neighbour table, see Topology.Table, with its arrays copied out for the hot loops
+	private final Topology.Table neighbours;
+	private final byte[] neighbourClasses;
+	private final int[] neighbourStart, neighbourOffsets;
+	private long seed; // mine layout is reproducible from the seed and first click
+	// cells kept free of mines by setMines: first row, first column, last row, last column
+	private final int[] freeArea = new int[4];
+
+	// cells are stored row-major: index = row * columns + col
+	private final byte[] counts; // number of adjacent mines (mine = MINE)
+	private final byte[] states;
+
+	// cells revealed by the current move, in the order they were revealed
+	private int[] revealed;
+	// mines packed into rows for BitBoard, only for square boards with enough mines
+	private long[] mineRows;
+
+	// counters kept up to date on every move so the win check never scans the board
+	private int hiddenSafe; // safe cells not yet revealed
+	private int flagged; // total flags placed
+	private int correctFlags; // flags placed on mines
+	private boolean minesSet, exploded;
+
+	public Board(int rows, int columns, int mines, long seed, Topology topology) {
+		if (rows < 1 || columns < 1 || mines < 0 || mines >= rows * columns) {
+			throw new IllegalArgumentException("Invalid board: " + rows + "x" + columns + ", " +
+					mines + " mines");
+		}
+		this.rows = rows;
+		this.columns = columns;
+		this.mines = mines;
+		this.seed = seed;
+		this.topology = topology;
+		neighbours = topology.build(rows, columns);
+		neighbourClasses = neighbours.classes;
+		neighbourStart = neighbours.start;
+		neighbourOffsets = neighbours.offsets;
+		counts = new byte[rows * columns];
+		states = new byte[rows * columns];
+		hiddenSafe = rows * columns - mines;
+	}
+
+	public Board(int rows, int columns, int mines, long seed) {
+		this(rows, columns, mines, seed, Topology.SQUARE);
+	}
+
+	public Board(Difficulty difficulty, long seed) {
+		this(difficulty.getRows(), difficulty.getColumns(), difficulty.getMines(), seed);
+	}
+
+	public Board(Difficulty difficulty, Topology topology) {
+		this(difficulty.getRows(), difficulty.getColumns(), difficulty.getMines(),
+				ThreadLocalRandom.current().nextLong(), topology);
+	}
+
+	public Board(Difficulty difficulty) {
+		this(difficulty, Topology.SQUARE);
+	}
+
+	// a copy of the board as it is now, for reading on another thread while the game goes on,
+	// sharing the neighbour table which never changes
+	public Board(Board board) {
+		rows = board.rows;
+		columns = board.columns;
+		mines = board.mines;
+		seed = board.seed;
+		topology = board.topology;
+		neighbours = board.neighbours;
+		neighbourClasses = board.neighbourClasses;
+		neighbourStart = board.neighbourStart;
+		neighbourOffsets = board.neighbourOffsets;
+		System.arraycopy(board.freeArea, 0, freeArea, 0, freeArea.length);
+		counts = board.counts.clone();
+		states = board.states.clone();
+		hiddenSafe = board.hiddenSafe;
+		flagged = board.flagged;
+		correctFlags = board.correctFlags;
+		minesSet = board.minesSet;
+		exploded = board.exploded;
+	}
+
+	public void setMines(final int initialRow, final int initialCol) {
+		// first revealed tile will never be a mine or have mines adjacent to it,
+		// unless the board is too dense to leave its neighbours free
+		final boolean neighboursFree = rows * columns - mines >= topology.getMaxNeighbours() + 1;
+		if (topology == Topology.SQUARE) {
+			// a rectangle, so the free area can be recorded for replays
+			final int exclusion = neighboursFree ? 1 : 0;
+			setMines(initialRow - exclusion, initialCol - exclusion, initialRow + exclusion,
+					initialCol + exclusion);
+			return;
+		}
+
+		final int initial = index(initialRow, initialCol);
+		final int[] allowed = getScratch();
+		// cells kept free are marked MINE until the mines are placed
+		counts[initial] = MINE;
+		if (neighboursFree) {
+			for (int k = neighbourStart[neighbourClasses[initial]],
+					end = neighbourStart[neighbourClasses[initial] + 1]; k < end; k++) {
+				counts[initial + neighbourOffsets[k]] = MINE;
+			}
+		}
+		int size = 0;
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] == MINE) counts[i] = 0;
+			else allowed[size++] = i;
+		}
+		freeArea[0] = freeArea[2] = initialRow;
+		freeArea[1] = freeArea[3] = initialCol;
+		placeMines(allowed, size);
+	}
+
+	// scratch space for placing mines, unused until the first reveal
+	private int[] getScratch() {
+		if (revealed == null) revealed = new int[counts.length];
+		return revealed;
+	}
+
+	// places the mines from the seed outside a rectangle of cells that must stay free
+	public void setMines(final int firstRow, final int firstCol, final int lastRow,
+			final int lastCol) {
+		final int[] allowed = getScratch();
+		int size = 0;
+		for (int i = 0; i < counts.length; i++) {
+			final int row = i / columns, col = i % columns;
+			if (row >= firstRow && row <= lastRow && col >= firstCol && col <= lastCol) continue;
+			allowed[size++] = i;
+		}
+		if (size < mines) {
+			throw new IllegalArgumentException("Not enough cells outside the free area for " +
+					mines + " mines");
+		}
+		freeArea[0] = firstRow;
+		freeArea[1] = firstCol;
+		freeArea[2] = lastRow;
+		freeArea[3] = lastCol;
+		placeMines(allowed, size);
+	}
+
+	// places the mines among the first cells of allowed
+	private void placeMines(final int[] allowed, final int size) {
+		final long[] rowBits = getMineRows();
+		// partial Fisher-Yates shuffle: each step moves a random remaining cell to the front
+		final SplittableRandom random = new SplittableRandom(seed);
+		for (int m = 0; m < mines; m++) {
+			final int j = m + random.nextInt(size - m);
+			final int mine = allowed[j];
+			allowed[j] = allowed[m];
+			allowed[m] = mine;
+
+			if (rowBits != null) {
+				BitBoard.set(rowBits, columns, mine);
+				continue;
+			}
+			counts[mine] = MINE;
+
+			// adds 1 to the count of all adjacent non-mine cells
+			for (int k = neighbourStart[neighbourClasses[mine]],
+					end = neighbourStart[neighbourClasses[mine] + 1]; k < end; k++) {
+				final int neighbour = mine + neighbourOffsets[k];
+				if (counts[neighbour] != MINE) counts[neighbour]++;
+			}
+		}
+		if (rowBits != null) BitBoard.countAdjacent(rowBits, rows, columns, counts);
+		minesSet = true;
+
+		// flags placed before the first reveal may have landed on mines
+		if (flagged > 0) {
+			for (int i = 0; i < states.length; i++) {
+				if (states[i] == FLAGGED && counts[i] == MINE) correctFlags++;
+			}
+		}
+		if (CHECK_COUNTERS) checkCounters();
+	}
+
+	// cleared bitset for the mines of square boards with at least 1 mine in 20 cells, where
+	// counting them a word at a time is faster than adding each mine to its neighbours
+	private long[] getMineRows() {
+		if (topology != Topology.SQUARE || (long)mines * 20 < (long)rows * columns) return null;
+		if (mineRows == null) mineRows = new long[rows * BitBoard.getWordsPerRow(columns)];
+		else Arrays.fill(mineRows, 0);
+		return mineRows;
+	}
+
+	// puts back a saved game: mines where bits of the row-major bitset are set (bit i % 64 of
+	// word i / 64), and the state of every cell
+	public void restore(long[] mineBits, byte[] states) {
+		reset(seed);
+		int placed = 0;
+		for (long bits : mineBits) placed += Long.bitCount(bits);
+		if (placed != mines) {
+			throw new IllegalArgumentException("Saved board has " + placed + " mines, not " +
+					mines);
+		}
+
+		final long[] rowBits = getMineRows();
+		if (rowBits != null) {
+			BitBoard.fromCells(mineBits, rows, columns, rowBits);
+			BitBoard.countAdjacent(rowBits, rows, columns, counts);
+		} else {
+			countMines(mineBits);
+		}
+		minesSet = true;
+
+		System.arraycopy(states, 0, this.states, 0, counts.length);
+		for (int i = 0; i < counts.length; i++) {
+			if (states[i] == FLAGGED) {
+				flagged++;
+				if (counts[i] == MINE) correctFlags++;
+			} else if (states[i] == REVEALED) {
+				if (counts[i] == MINE) exploded = true;
+				else hiddenSafe--;
+			}
+		}
+		if (CHECK_COUNTERS) checkCounters();
+	}
+
+	// every neighbour of a mine is counted, then the mines themselves are marked, visiting
+	// only the set bits of each word
+	private void countMines(long[] mineBits) {
+		for (int w = 0; w < mineBits.length; w++) {
+			for (long bits = mineBits[w]; bits != 0; bits &= bits - 1) {
+				final int i = w << 6 | Long.numberOfTrailingZeros(bits);
+				for (int k = neighbourStart[neighbourClasses[i]],
+						end = neighbourStart[neighbourClasses[i] + 1]; k < end; k++) {
+					counts[i + neighbourOffsets[k]]++;
+				}
+			}
+		}
+		for (int w = 0; w < mineBits.length; w++) {
+			for (long bits = mineBits[w]; bits != 0; bits &= bits - 1) {
+				counts[w << 6 | Long.numberOfTrailingZeros(bits)] = MINE;
+			}
+		}
+	}
+
+	// clears the board for a new game with the same size, reusing its storage
+	public void reset(long seed) {
+		Arrays.fill(counts, (byte)0);
+		Arrays.fill(states, HIDDEN);
+		this.seed = seed;
+		hiddenSafe = rows * columns - mines;
+		flagged = correctFlags = 0;
+		minesSet = exploded = false;
+	}
+
+	public void reset() {
+		reset(ThreadLocalRandom.current().nextLong());
+	}
+
+	// replaces the seed of a board whose mines have not been placed yet
+	public void setSeed(long seed) {
+		if (minesSet) throw new IllegalStateException("Mines are already placed");
+		this.seed = seed;
+	}
+
+	// returns the cells revealed by the move (the mine itself if one was revealed)
+	public int[] reveal(final int row, final int col) {
+		if (states[index(row, col)] != HIDDEN) return new int[0];
+		if (!minesSet) setMines(row, col);
+		final int n = floodFill(index(row, col), 0);
+		if (CHECK_COUNTERS) checkCounters();
+		return Arrays.copyOf(revealed, n);
+	}
+
+	// reveals all hidden neighbours of a number once enough flags surround it
+	// returns the cells revealed by the move, including any mines
+	public int[] chord(final int row, final int col) {
+		if (states[index(row, col)] != REVEALED || counts[index(row, col)] <= 0) return new int[0];
+
+		final int i = index(row, col);
+		final int start = neighbourStart[neighbourClasses[i]];
+		final int end = neighbourStart[neighbourClasses[i] + 1];
+		int adjacentFlags = 0;
+		for (int k = start; k < end; k++) {
+			if (states[i + neighbourOffsets[k]] == FLAGGED) adjacentFlags++;
+		}
+		if (adjacentFlags != counts[i]) return new int[0];
+
+		int n = 0;
+		for (int k = start; k < end; k++) {
+			final int j = i + neighbourOffsets[k];
+			if (states[j] == HIDDEN) n = floodFill(j, n);
+		}
+		if (CHECK_COUNTERS) checkCounters();
+		return Arrays.copyOf(revealed, n);
+	}
+
+	// reveals a hidden cell and flood fills from it if it has no adjacent mines
+	// revealed cells are appended to the revealed buffer from offset, returns the new length
+	private int floodFill(final int start, final int offset) {
+		getScratch();
+
+		states[start] = REVEALED;
+		revealed[offset] = start;
+		if (counts[start] == MINE) {
+			exploded = true;
+			return offset + 1;
+		}
+		hiddenSafe--;
+
+		// the revealed buffer doubles as the queue: every cell is marked when it is enqueued,
+		// so each cell is visited once no matter how many of its neighbours are empty
+		int head = offset, tail = offset + 1;
+		while (head < tail) {
+			final int i = revealed[head++];
+			if (counts[i] != 0) continue;
+
+			for (int k = neighbourStart[neighbourClasses[i]],
+					end = neighbourStart[neighbourClasses[i] + 1]; k < end; k++) {
+				final int j = i + neighbourOffsets[k];
+				if (states[j] != HIDDEN) continue;
+				states[j] = REVEALED;
+				revealed[tail++] = j;
+				hiddenSafe--; // cells next to an empty cell are never mines
+			}
+		}
+		return tail;
+	}
+
+	// cycles through flagged, unknown, and hidden states
+	public byte cycleFlag(final int row, final int col) {
+		final int i = index(row, col);
+		switch (states[i]) {
+			case HIDDEN:
+				states[i] = FLAGGED;
+				flagged++;
+				if (counts[i] == MINE) correctFlags++;
+				break;
+			case FLAGGED:
+				states[i] = UNKNOWN;
+				flagged--;
+				if (counts[i] == MINE) correctFlags--;
+				break;
+			case UNKNOWN:
+				states[i] = HIDDEN;
+				break;
+		}
+		if (CHECK_COUNTERS) checkCounters();
+		return states[i];
+	}
+
+	public boolean isWin() {
+		// win condition: all non-mine cells revealed without placing more flags than mines
+		return !exploded && hiddenSafe == 0 && flagged <= mines;
+	}
+
+	// recounts the board and throws if the running counters disagree with it
+	public void checkCounters() {
+		int hiddenSafe = 0, flagged = 0, correctFlags = 0;
+		for (int i = 0; i < states.length; i++) {
+			if (states[i] == FLAGGED) {
+				flagged++;
+				if (minesSet && counts[i] == MINE) correctFlags++;
+			}
+			if (states[i] != REVEALED && counts[i] != MINE) hiddenSafe++;
+		}
+		if (!minesSet) hiddenSafe = states.length - mines; // nothing can be revealed yet
+		if (hiddenSafe != this.hiddenSafe || flagged != this.flagged ||
+				correctFlags != this.correctFlags) {
+			throw new IllegalStateException("Counters out of sync: hidden safe " +
+					this.hiddenSafe + " (expected " + hiddenSafe + "), flags " + this.flagged +
+					" (expected " + flagged + "), correct flags " + this.correctFlags +
+					" (expected " + correctFlags + ")");
+		}
+	}
+
+	public boolean isNeighbour(int cell, int other) {
+		for (int k = neighbourStart[neighbourClasses[cell]],
+				end = neighbourStart[neighbourClasses[cell] + 1]; k < end; k++) {
+			if (cell + neighbourOffsets[k] == other) return true;
+		}
+		return false;
+	}
+
+	public int index(int row, int col) {
+		return row * columns + col;
+	}
+	public int getRow(int index) {
+		return index / columns;
+	}
+	public int getColumn(int index) {
+		return index % columns;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+	public int getColumns() {
+		return columns;
+	}
+	public int getMines() {
+		return mines;
+	}
+	public Topology getTopology() {
+		return topology;
+	}
+	// the neighbours of every cell, for code that walks them in its own loops
+	public Topology.Table getNeighbours() {
+		return neighbours;
+	}
+	public long getSeed() {
+		return seed;
+	}
+	// rows and columns passed to setMines, with the seed they reproduce the layout
+	public int[] getFreeArea() {
+		return freeArea.clone();
+	}
+	// flags left to place, negative when more flags than mines are placed
+	public int getFlags() {
+		return mines - flagged;
+	}
+	public int getFlagged() {
+		return flagged;
+	}
+	public int getCorrectFlags() {
+		return correctFlags;
+	}
+	public int getHiddenSafe() {
+		return hiddenSafe;
+	}
+
+	public byte getState(int row, int col) {
+		return states[index(row, col)];
+	}
+	public byte getState(int index) {
+		return states[index];
+	}
+	public byte getCount(int row, int col) {
+		return counts[index(row, col)];
+	}
+	public byte getCount(int index) {
+		return counts[index];
+	}
+	public boolean isMine(int row, int col) {
+		return counts[index(row, col)] == MINE;
+	}
+	public boolean isMine(int index) {
+		return counts[index] == MINE;
+	}
+
+	public boolean isMinesSet() {
+		return minesSet;
+	}
+	public boolean isExploded() {
+		return exploded;
+	}
+}
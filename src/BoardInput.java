@@ -0,0 +1,102 @@
+import javax.swing.*;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+// turns mouse presses, drags, and releases on the board into moves on cells
+public class BoardInput extends MouseAdapter {
+	private static final int BUTTONS_DOWN_MASK = InputEvent.BUTTON1_DOWN_MASK |
+			InputEvent.BUTTON2_DOWN_MASK | InputEvent.BUTTON3_DOWN_MASK;
+
+	// what the held buttons will do when released
+	private static final int NONE = 0;
+	private static final int REVEAL = 1;
+	private static final int CHORD = 2;
+	private static final int FLAG = 3;
+	private static final int DONE = 4; // move made, waiting for the other buttons to be released
+
+	public interface Handler {
+		void reveal(int row, int col);
+		void chord(int row, int col);
+		void flag(int row, int col);
+		// the held tile changed, row and col are -1 when nothing is held
+		void pressChanged(int row, int col, boolean chord);
+	}
+
+	private final BoardView boardView;
+	private final Handler handler;
+	private int mode = NONE;
+	private boolean chordPressed;
+
+	public BoardInput(BoardView boardView, Handler handler) {
+		this.boardView = boardView;
+		this.handler = handler;
+		boardView.addMouseListener(this);
+		boardView.addMouseMotionListener(this);
+	}
+
+	@Override
+	public void mousePressed(MouseEvent e) {
+		if (!boardView.isEnabled()) return;
+		int row = boardView.getRow(e.getY());
+		int col = boardView.getColumn(e.getX(), e.getY());
+
+		boolean left = SwingUtilities.isLeftMouseButton(e);
+		boolean right = SwingUtilities.isRightMouseButton(e);
+		if (mode == NONE) {
+			if (SwingUtilities.isMiddleMouseButton(e) || (left && e.isControlDown())) {
+				mode = CHORD;
+			} else if (right || (left && e.isAltDown())) {
+				// flags change as soon as the button goes down
+				mode = FLAG;
+				if (row >= 0 && col >= 0) handler.flag(row, col);
+				return;
+			} else if (left) {
+				mode = REVEAL;
+			} else {
+				return;
+			}
+		} else if (mode == REVEAL && right || mode == FLAG && left) {
+			// holding left and right together chords
+			mode = CHORD;
+		} else {
+			return;
+		}
+		press(row, col);
+	}
+
+	@Override
+	public void mouseDragged(MouseEvent e) {
+		// the held tile follows the mouse, even between tiles or off the board
+		if (mode == REVEAL || mode == CHORD) {
+			press(boardView.getRow(e.getY()), boardView.getColumn(e.getX(), e.getY()));
+		}
+	}
+
+	@Override
+	public void mouseReleased(MouseEvent e) {
+		final int released = mode;
+		mode = (e.getModifiersEx() & BUTTONS_DOWN_MASK) != 0 ? DONE : NONE;
+		if (released != REVEAL && released != CHORD) return;
+
+		// moves apply to the tile under the mouse when it is released
+		int row = boardView.getRow(e.getY());
+		int col = boardView.getColumn(e.getX(), e.getY());
+		press(-1, -1);
+		if (row < 0 || col < 0 || !boardView.isEnabled()) return;
+
+		if (released == REVEAL) handler.reveal(row, col);
+		else handler.chord(row, col);
+	}
+
+	private void press(int row, int col) {
+		if (row < 0 || col < 0) row = col = -1;
+		if (row == boardView.getPressedRow() && col == boardView.getPressedColumn() &&
+				chordPressed == (mode == CHORD)) return;
+
+		chordPressed = mode == CHORD;
+		if (row < 0) boardView.release();
+		else boardView.press(row, col, chordPressed);
+		handler.pressChanged(row, col, chordPressed);
+	}
+}
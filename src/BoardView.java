@@ -0,0 +1,301 @@
+import javax.swing.*;
+import java.awt.*;
+
+// draws the whole board as a single component, painting only the tiles inside the clip
+// the game's events say which tiles changed, so it never compares the board with what it drew
+public class BoardView extends JComponent implements Scrollable, GameEvents.Listener {
+	private static final long serialVersionUID = -4630209474511376529L;
+
+	// space left around the viewport for the scoreboard, borders and window decorations
+	private static final int SCREEN_MARGIN = 200;
+
+	private Board board;
+	private int tileSize;
+	private boolean gameOver;
+
+	// tile held down by the mouse, with its neighbours when chording
+	private int pressedRow = -1, pressedCol = -1;
+	private boolean chordPressed;
+
+	// tile suggested by the solver, outlined until the next move
+	private int hintRow = -1, hintCol = -1;
+	private boolean hintSafe;
+
+	private SpriteAtlas.Sprites sprites;
+	private Metrics metrics; // null if paints are not measured
+
+	public BoardView() {
+		setOpaque(true);
+	}
+
+	public void setMetrics(Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	// sizes the board before its sprites are loaded, nothing is drawn until they are
+	public void setTileSize(int tileSize) {
+		this.tileSize = tileSize;
+		revalidate();
+	}
+
+	// sprites are already scaled to the tile size, so tiles are drawn without scaling
+	public void setSprites(SpriteAtlas.Sprites sprites) {
+		boolean resized = sprites.tileSize != tileSize;
+		this.sprites = sprites;
+		tileSize = sprites.tileSize;
+		if (resized) revalidate();
+		repaint();
+	}
+
+	public void setBoard(Board board) {
+		this.board = board;
+		gameOver = false;
+		release();
+		clearHint();
+		setEnabled(true);
+		revalidate();
+		repaint();
+	}
+
+	public void setGameOver(boolean gameOver) {
+		this.gameOver = gameOver;
+		setEnabled(!gameOver);
+		repaint();
+	}
+
+	// GAME EVENTS
+
+	@Override
+	public void gameReset(Board board) {
+		setBoard(board);
+	}
+
+	@Override
+	public void gameResumed(Board board, long elapsedMillis) {
+		setBoard(board);
+	}
+
+	@Override
+	public void cellsRevealed(int move, int cell, int[] cells) {
+		clearHint();
+		repaintCells(cells);
+	}
+
+	@Override
+	public void flagChanged(int cell, byte state) {
+		clearHint();
+		repaintCell(board.getRow(cell), board.getColumn(cell));
+	}
+
+	// mines are shown and the board stops taking moves
+	@Override
+	public void gameWon(long elapsedMillis) {
+		setGameOver(true);
+	}
+
+	@Override
+	public void gameLost(long elapsedMillis) {
+		setGameOver(true);
+	}
+
+	// row or column under a pixel coordinate, -1 if outside the board
+	public int getRow(int y) {
+		return y < 0 || y >= board.getRows() * tileSize ? -1 : y / tileSize;
+	}
+	public int getColumn(int x, int y) {
+		final int row = getRow(y);
+		if (row < 0) return -1;
+		x -= getRowOffset(row);
+		return x < 0 || x >= board.getColumns() * tileSize ? -1 : x / tileSize;
+	}
+
+	// hexagonal boards shift odd rows half a tile right
+	private int getRowOffset(int row) {
+		return (row & 1) == 1 && board.getTopology().isHexagonal() ? tileSize / 2 : 0;
+	}
+
+	public int getPressedRow() {
+		return pressedRow;
+	}
+	public int getPressedColumn() {
+		return pressedCol;
+	}
+
+	public void press(int row, int col, boolean chord) {
+		release();
+		pressedRow = row;
+		pressedCol = col;
+		chordPressed = chord;
+		repaintArea(row, col);
+	}
+
+	public void release() {
+		if (pressedRow < 0) return;
+		repaintArea(pressedRow, pressedCol);
+		pressedRow = pressedCol = -1;
+	}
+
+	public void setHint(int row, int col, boolean safe) {
+		clearHint();
+		hintRow = row;
+		hintCol = col;
+		hintSafe = safe;
+		repaintCell(row, col);
+		scrollRectToVisible(new Rectangle(col * tileSize + getRowOffset(row), row * tileSize,
+				tileSize, tileSize));
+	}
+
+	public void clearHint() {
+		if (hintRow < 0) return;
+		repaintCell(hintRow, hintCol);
+		hintRow = hintCol = -1;
+	}
+
+	// repaints a batch of changed cells with a single dirty rectangle around them,
+	// RepaintManager merges it with any other repaints made before the next frame
+	public void repaintCells(int[] cells) {
+		if (cells.length == 0) return;
+		int minRow = Integer.MAX_VALUE, maxRow = -1, minCol = Integer.MAX_VALUE, maxCol = -1;
+		for (int i : cells) {
+			int row = board.getRow(i), col = board.getColumn(i);
+			if (row < minRow) minRow = row;
+			if (row > maxRow) maxRow = row;
+			if (col < minCol) minCol = col;
+			if (col > maxCol) maxCol = col;
+		}
+
+		// tiles outside the viewport are never painted, so the rectangle is clipped to it
+		final int shift = board.getTopology().isHexagonal() ? tileSize / 2 : 0;
+		Rectangle dirty = new Rectangle(minCol * tileSize, minRow * tileSize,
+				(maxCol - minCol + 1) * tileSize + shift, (maxRow - minRow + 1) * tileSize)
+				.intersection(getVisibleRect());
+		if (!dirty.isEmpty()) repaint(dirty);
+	}
+
+	public void repaintCell(int row, int col) {
+		repaint(col * tileSize + getRowOffset(row), row * tileSize, tileSize, tileSize);
+	}
+
+	// repaints a tile and its neighbours, which may be across the board when it wraps around
+	private void repaintArea(int row, int col) {
+		repaintCell(row, col);
+		final int i = board.index(row, col);
+		Topology.Table neighbours = board.getNeighbours();
+		for (int k = neighbours.getStart(i), end = neighbours.getEnd(i); k < end; k++) {
+			final int j = i + neighbours.offsets[k];
+			repaintCell(board.getRow(j), board.getColumn(j));
+		}
+	}
+
+	private boolean isPressed(int row, int col) {
+		if (pressedRow < 0) return false;
+		if (row == pressedRow && col == pressedCol) return true;
+		return chordPressed && board.isNeighbour(board.index(pressedRow, pressedCol),
+				board.index(row, col));
+	}
+
+	private Image getImage(int row, int col) {
+		final boolean mine = board.isMine(row, col);
+		final boolean lost = gameOver && board.isExploded();
+		final boolean won = gameOver && !lost;
+
+		switch (board.getState(row, col)) {
+			case Board.HIDDEN:
+				if (won) return sprites.flag;
+				if (lost && mine) return sprites.mine;
+				return isPressed(row, col) ? sprites.revealedTile : sprites.tile;
+			case Board.FLAGGED:
+				return lost && !mine ? sprites.incorrectGuess : sprites.flag;
+			case Board.UNKNOWN:
+				if (won) return sprites.flag;
+				if (lost && mine) return sprites.mine;
+				return sprites.unknown;
+			default:
+				int mineCount = board.getCount(row, col);
+				if (mineCount == Board.MINE) return sprites.mineSelected;
+				if (mineCount > 0) return sprites.numbers[mineCount - 1];
+				return sprites.revealedTile;
+		}
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		if (board == null || sprites == null) return;
+		final long start = System.nanoTime();
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+
+		// the half tiles left beside shifted hexagonal rows
+		if (board.getTopology().isHexagonal()) {
+			g.setColor(getBackground());
+			g.fillRect(clip.x, clip.y, clip.width, clip.height);
+		}
+
+		// only the tiles intersecting the clip are drawn
+		int firstRow = Math.max(clip.y / tileSize, 0);
+		int lastRow = Math.min((clip.y + clip.height - 1) / tileSize, board.getRows() - 1);
+		int tiles = 0;
+		for (int row = firstRow; row <= lastRow; row++) {
+			final int offset = getRowOffset(row);
+			int firstCol = Math.max((clip.x - offset) / tileSize, 0);
+			int lastCol = Math.min((clip.x + clip.width - 1 - offset) / tileSize,
+					board.getColumns() - 1);
+			for (int col = firstCol; col <= lastCol; col++) {
+				g.drawImage(getImage(row, col), col * tileSize + offset, row * tileSize, null);
+			}
+			tiles += Math.max(lastCol - firstCol + 1, 0);
+		}
+
+		// green for a safe tile, red for the least risky guess
+		if (hintRow >= firstRow && hintRow <= lastRow) {
+			g.setColor(hintSafe ? Color.GREEN : Color.RED);
+			int width = Math.max(tileSize / 16, 1);
+			for (int i = 0; i < width; i++) {
+				g.drawRect(hintCol * tileSize + getRowOffset(hintRow) + i, hintRow * tileSize + i,
+						tileSize - 1 - 2 * i, tileSize - 1 - 2 * i);
+			}
+		}
+		if (metrics != null) metrics.painted(start, tiles);
+	}
+
+	@Override
+	public Dimension getPreferredSize() {
+		if (board == null) return new Dimension(0, 0);
+		final int shift = board.getTopology().isHexagonal() && board.getRows() > 1 ?
+				tileSize / 2 : 0;
+		return new Dimension(board.getColumns() * tileSize + shift, board.getRows() * tileSize);
+	}
+
+	@Override
+	public Dimension getPreferredScrollableViewportSize() {
+		// fit the whole board on screen if possible, otherwise scroll
+		Rectangle screen = GraphicsEnvironment.getLocalGraphicsEnvironment()
+				.getMaximumWindowBounds();
+		Dimension size = getPreferredSize();
+		int maxWidth = (screen.width - SCREEN_MARGIN) / tileSize * tileSize;
+		int maxHeight = (screen.height - SCREEN_MARGIN) / tileSize * tileSize;
+		return new Dimension(Math.min(size.width, maxWidth), Math.min(size.height, maxHeight));
+	}
+
+	@Override
+	public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+		return tileSize;
+	}
+
+	@Override
+	public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+		int visible = orientation == SwingConstants.VERTICAL ? visibleRect.height :
+				visibleRect.width;
+		return Math.max(visible / tileSize - 1, 1) * tileSize;
+	}
+
+	@Override
+	public boolean getScrollableTracksViewportWidth() {
+		return false;
+	}
+
+	@Override
+	public boolean getScrollableTracksViewportHeight() {
+		return false;
+	}
+}
@@ -1,4 +1,5 @@
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import javax.swing.border.AbstractBorder;
 
 public abstract class CustomBorder extends AbstractBorder {
@@ -8,24 +9,54 @@ public abstract class CustomBorder extends AbstractBorder {
 	private static final int HSWIDTH = WIDTH / 3;
 	private static final int TOTAL_WIDTH = WIDTH + 2 * HSWIDTH;
 
-	private static Color primaryColor, highlightColor, shadowColor;
+	protected final Color primaryColor, highlightColor, shadowColor;
+	protected final boolean dither;
 
-	private static boolean dither;
-	private static Graphics2D g2;
+	// border rendered at the last painted size, blitted on every repaint
+	private transient BufferedImage cache;
 
 	public CustomBorder(Theme theme) {
 		super();
-		CustomBorder.primaryColor = theme.getPrimaryColor();
-		CustomBorder.highlightColor = theme.getHighlightColor();
-		CustomBorder.shadowColor = theme.getShadowColor();
+		primaryColor = theme.getPrimaryColor();
+		highlightColor = theme.getHighlightColor();
+		shadowColor = theme.getShadowColor();
 		dither = primaryColor == null;
 	}
 
-	private static void paintDitheredBorder(Color color1, Color color2, int cWidth, int cHeight,
-			Rectangle bounds) {
+	@Override
+	public void paintBorder(Component c, Graphics g, int x, int y, int cWidth, int cHeight) {
+		int width = getBorderWidth(cWidth), height = getBorderHeight(cHeight);
+		if (cache == null || cache.getWidth() != width || cache.getHeight() != height) {
+			GraphicsConfiguration config = c.getGraphicsConfiguration();
+			cache = config != null ?
+					config.createCompatibleImage(width, height, Transparency.TRANSLUCENT) :
+					new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g2 = cache.createGraphics();
+			paintBorder(g2, width, height);
+			g2.dispose();
+		}
+
+		// only the part of the cached border inside the clip is copied
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) clip = new Rectangle(0, 0, width, height);
+		else clip = clip.intersection(new Rectangle(0, 0, width, height));
+		if (clip.isEmpty()) return;
+		g.drawImage(cache, clip.x, clip.y, clip.x + clip.width, clip.y + clip.height,
+				clip.x, clip.y, clip.x + clip.width, clip.y + clip.height, null);
+	}
+
+	// size of the painted border for the given inner size
+	protected abstract int getBorderWidth(int cWidth);
+	protected abstract int getBorderHeight(int cHeight);
+
+	// paints the whole border, only called when the cached image is out of date
+	protected abstract void paintBorder(Graphics2D g2, int cWidth, int cHeight);
+
+	protected static void paintDitheredBorder(Graphics2D g2, Color color1, Color color2,
+			int cWidth, int cHeight, Rectangle bounds) {
 		for (int x = 0; x < cWidth; x += HSWIDTH) {
 			for (int y = 0; y < cHeight; y += HSWIDTH) {
-				if (bounds.contains(new Point(x, y))) continue;
+				if (bounds.contains(x, y)) continue;
 				if (x % 2 == y % 2) g2.setColor(color1);
 				else g2.setColor(color2);
 				g2.fillRect(x, y, HSWIDTH, HSWIDTH);
@@ -33,15 +64,16 @@ public abstract class CustomBorder extends AbstractBorder {
 		}
 	}
 
-	private static void paintRect(Color color, int x, int y, int width, int height) {
+	protected static void paintRect(Graphics2D g2, Color color, int x, int y, int width,
+			int height) {
 		g2.setColor(color);
 		g2.fillRect(x, y, width, height);
 	}
-	private static void paintTrap(Color color, int[] xPoints, int[] yPoints) {
+	protected static void paintTrap(Graphics2D g2, Color color, int[] xPoints, int[] yPoints) {
 		g2.setColor(color);
 		g2.fillPolygon(xPoints, yPoints, 4);
 	}
-	private static void paintLine(Color color, int x1, int y1, int x2, int y2) {
+	protected static void paintLine(Graphics2D g2, Color color, int x1, int y1, int x2, int y2) {
 		g2.setColor(color);
 		g2.drawLine(x1, y1, x2, y2);
 	}
@@ -65,42 +97,47 @@ public abstract class CustomBorder extends AbstractBorder {
 		}
 
 		@Override
-		public void paintBorder(Component c, Graphics g, int x, int y, int cWidth, int cHeight) {
-			cWidth += 2 * (TOTAL_WIDTH + padding);
-			cHeight += 2 * (TOTAL_WIDTH + padding) - HSWIDTH;
+		protected int getBorderWidth(int cWidth) {
+			return cWidth + 2 * (TOTAL_WIDTH + padding);
+		}
 
-			super.paintBorder(c, g, x, y, cWidth, cHeight);
-			g2 = (Graphics2D)g;
+		@Override
+		protected int getBorderHeight(int cHeight) {
+			return cHeight + 2 * (TOTAL_WIDTH + padding) - HSWIDTH;
+		}
 
+		@Override
+		protected void paintBorder(Graphics2D g2, int cWidth, int cHeight) {
 			if (!dither) {
-				paintRect(primaryColor, 0, 0, cWidth, cHeight);
+				paintRect(g2, primaryColor, 0, 0, cWidth, cHeight);
 			} else {
-				paintDitheredBorder(shadowColor, highlightColor, cWidth, cHeight,
+				paintDitheredBorder(g2, shadowColor, highlightColor, cWidth, cHeight,
 						new Rectangle(WIDTH + HSWIDTH, WIDTH + HSWIDTH, cWidth - 2 * TOTAL_WIDTH,
 						cHeight - 2 * TOTAL_WIDTH));
-				paintRect(highlightColor, WIDTH + HSWIDTH, WIDTH + HSWIDTH,
+				paintRect(g2, highlightColor, WIDTH + HSWIDTH, WIDTH + HSWIDTH,
 						cWidth - 2 * (WIDTH + HSWIDTH), cHeight - 2 * WIDTH - HSWIDTH);
 			}
 
-			paintTrap(highlightColor, new int[]{0, cWidth, cWidth - HSWIDTH, 0},
+			paintTrap(g2, highlightColor, new int[]{0, cWidth, cWidth - HSWIDTH, 0},
 					new int[]{0, 0, HSWIDTH, HSWIDTH}); // TOP HIGHTLIGHT
-			paintRect(shadowColor, WIDTH + HSWIDTH, WIDTH + HSWIDTH,
+			paintRect(g2, shadowColor, WIDTH + HSWIDTH, WIDTH + HSWIDTH,
 					cWidth - 2 * (WIDTH + HSWIDTH), HSWIDTH); // TOP SHADOW
-			paintTrap(shadowColor, new int[]{cWidth - HSWIDTH, cWidth, cWidth, cWidth - HSWIDTH},
+			paintTrap(g2, shadowColor,
+					new int[]{cWidth - HSWIDTH, cWidth, cWidth, cWidth - HSWIDTH},
 					new int[]{HSWIDTH, 0, cHeight, cHeight}); // RIGHT SHADOW
-			paintRect(highlightColor, cWidth - TOTAL_WIDTH, WIDTH + HSWIDTH, HSWIDTH,
+			paintRect(g2, highlightColor, cWidth - TOTAL_WIDTH, WIDTH + HSWIDTH, HSWIDTH,
 					cHeight - 2 * (WIDTH + HSWIDTH)); // RIGHT HIGHLIGHT
-			paintRect(highlightColor, TOTAL_WIDTH, cHeight - TOTAL_WIDTH,
+			paintRect(g2, highlightColor, TOTAL_WIDTH, cHeight - TOTAL_WIDTH,
 					cWidth - 2 * (TOTAL_WIDTH), HSWIDTH); // BOTTOM HIGHLIGHT
-			paintTrap(highlightColor, new int[]{0, HSWIDTH, HSWIDTH, 0},
+			paintTrap(g2, highlightColor, new int[]{0, HSWIDTH, HSWIDTH, 0},
 					new int[]{0, 0, cHeight - HSWIDTH, cHeight}); // LEFT HIGHLIGHT
-			paintRect(shadowColor, WIDTH + HSWIDTH, WIDTH + HSWIDTH, HSWIDTH,
+			paintRect(g2, shadowColor, WIDTH + HSWIDTH, WIDTH + HSWIDTH, HSWIDTH,
 					cHeight - 2 * (WIDTH + HSWIDTH)); // LEFT SHADOW
 
 			if (dither) {
-				paintLine(shadowColor, cWidth - TOTAL_WIDTH, WIDTH + HSWIDTH,
+				paintLine(g2, shadowColor, cWidth - TOTAL_WIDTH, WIDTH + HSWIDTH,
 						cWidth - TOTAL_WIDTH, cHeight - WIDTH - HSWIDTH);
-				paintLine(shadowColor, TOTAL_WIDTH, cHeight - (WIDTH + HSWIDTH),
+				paintLine(g2, shadowColor, TOTAL_WIDTH, cHeight - (WIDTH + HSWIDTH),
 						cWidth - TOTAL_WIDTH, cHeight - (WIDTH + HSWIDTH));
 			}
 		}
@@ -114,40 +151,44 @@ public abstract class CustomBorder extends AbstractBorder {
 		}
 
 		@Override
-		public void paintBorder(Component c, Graphics g, int x, int y, int cWidth, int cHeight) {
-			cWidth += 2 * TOTAL_WIDTH;
-			cHeight += 2 * TOTAL_WIDTH - TOTAL_WIDTH / 4;
+		protected int getBorderWidth(int cWidth) {
+			return cWidth + 2 * TOTAL_WIDTH;
+		}
 
-			super.paintBorder(c, g, x, y, cWidth, cHeight);
-			g2 = (Graphics2D)g;
+		@Override
+		protected int getBorderHeight(int cHeight) {
+			return cHeight + 2 * TOTAL_WIDTH - TOTAL_WIDTH / 4;
+		}
 
+		@Override
+		protected void paintBorder(Graphics2D g2, int cWidth, int cHeight) {
 			if (!dither) {
-				paintRect(primaryColor, 0, 0, cWidth, cHeight);
+				paintRect(g2, primaryColor, 0, 0, cWidth, cHeight);
 			} else {
-				paintDitheredBorder(highlightColor, shadowColor, cWidth, cHeight,
+				paintDitheredBorder(g2, highlightColor, shadowColor, cWidth, cHeight,
 						new Rectangle(WIDTH + HSWIDTH, WIDTH + HSWIDTH, cWidth - 2 * TOTAL_WIDTH,
 						cHeight - 2 * TOTAL_WIDTH));
 			}
 
-			paintRect(shadowColor, WIDTH + HSWIDTH, WIDTH + HSWIDTH - TOTAL_WIDTH / 4,
+			paintRect(g2, shadowColor, WIDTH + HSWIDTH, WIDTH + HSWIDTH - TOTAL_WIDTH / 4,
 					cWidth - 2 * (WIDTH + HSWIDTH), HSWIDTH); // TOP SHADOW
-			paintRect(shadowColor, cWidth - HSWIDTH, 0, HSWIDTH, cHeight); // RIGHT SHADOW
-			paintRect(highlightColor, cWidth - TOTAL_WIDTH, WIDTH + HSWIDTH - TOTAL_WIDTH / 3,
+			paintRect(g2, shadowColor, cWidth - HSWIDTH, 0, HSWIDTH, cHeight); // RIGHT SHADOW
+			paintRect(g2, highlightColor, cWidth - TOTAL_WIDTH, WIDTH + HSWIDTH - TOTAL_WIDTH / 3,
 					HSWIDTH, cHeight - 2 * (WIDTH + HSWIDTH)); // RIGHT HIGHLIGHT
-			paintTrap(shadowColor, new int[]{HSWIDTH, cWidth, cWidth, 0},
+			paintTrap(g2, shadowColor, new int[]{HSWIDTH, cWidth, cWidth, 0},
 					new int[]{cHeight - 2 * HSWIDTH, cHeight - 2 * HSWIDTH, cHeight,
 					cHeight}); // BOTTOM SHADOW
-			paintRect(highlightColor, TOTAL_WIDTH, cHeight - TOTAL_WIDTH * 4 / 3,
+			paintRect(g2, highlightColor, TOTAL_WIDTH, cHeight - TOTAL_WIDTH * 4 / 3,
 					cWidth - 2 * TOTAL_WIDTH, HSWIDTH); // BOTTOM HIGHLIGHT
-			paintTrap(highlightColor, new int[]{0, HSWIDTH, HSWIDTH, 0},
+			paintTrap(g2, highlightColor, new int[]{0, HSWIDTH, HSWIDTH, 0},
 					new int[]{0, 0, cHeight - HSWIDTH, cHeight}); // LEFT HIGHLIGHT
-			paintRect(shadowColor, WIDTH + HSWIDTH, WIDTH, HSWIDTH,
+			paintRect(g2, shadowColor, WIDTH + HSWIDTH, WIDTH, HSWIDTH,
 					cHeight - 2 * (WIDTH + HSWIDTH) - TOTAL_WIDTH / 6); // LEFT SHADOW
 
 			if (dither) {
-				paintLine(shadowColor, cWidth - TOTAL_WIDTH, WIDTH + HSWIDTH - TOTAL_WIDTH / 3,
+				paintLine(g2, shadowColor, cWidth - TOTAL_WIDTH, WIDTH + HSWIDTH - TOTAL_WIDTH / 3,
 						cWidth - TOTAL_WIDTH, cHeight - TOTAL_WIDTH - 2 * HSWIDTH);
-				paintLine(shadowColor, TOTAL_WIDTH, cHeight - TOTAL_WIDTH * 4 / 3,
+				paintLine(g2, shadowColor, TOTAL_WIDTH, cHeight - TOTAL_WIDTH * 4 / 3,
 						cWidth - TOTAL_WIDTH, cHeight - TOTAL_WIDTH * 4 / 3);
 			}
 		}
@@ -0,0 +1,68 @@
+import javax.swing.*;
+import java.awt.*;
+
+// the latest measurements drawn over the top left of the window, used as its glass pane, so it
+// takes no mouse events and changes nothing underneath
+public class DebugOverlay extends JComponent {
+	private static final long serialVersionUID = 3419650228160732867L;
+
+	private static final int REFRESH_MS = 250;
+	private static final int PADDING = 6;
+	private static final Color BACKGROUND = new Color(0, 0, 0, 180);
+
+	private final Metrics metrics;
+	private final Timer refreshTimer;
+	private final Rectangle bounds = new Rectangle(); // area painted last time
+
+	public DebugOverlay(Metrics metrics) {
+		this.metrics = metrics;
+		setOpaque(false);
+		setFont(new Font(Font.MONOSPACED, Font.PLAIN, 11));
+		// only the box is repainted, so the board under it is not redrawn on every refresh
+		refreshTimer = new Timer(REFRESH_MS, e -> repaint(bounds));
+	}
+
+	@Override
+	public void setVisible(boolean visible) {
+		super.setVisible(visible);
+		if (visible) refreshTimer.start();
+		else refreshTimer.stop();
+	}
+
+	private String[] getLines() {
+		return new String[] {
+			format("input to paint", metrics.getInputLatency()),
+			format("move", metrics.getMoves()) + String.format("  %d cells (max %d)",
+					metrics.getLastMoveCells(), metrics.getLargestMoveCells()),
+			format("mine placement", metrics.getMinePlacement()),
+			format("new game", metrics.getInit()),
+			format("icons", metrics.getIcons()),
+			format("board paint", metrics.getPaints()),
+			format("EDT stalls", metrics.getStalls()) +
+					String.format("  %d over 16 ms", metrics.getStalls().getCount())
+		};
+	}
+
+	private static String format(String name, Metrics.Timer timer) {
+		return String.format("%-15s last %7.2f  avg %7.2f  max %7.2f ms", name,
+				timer.getLastMillis(), timer.getAverageMillis(), timer.getMaxMillis());
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		String[] lines = getLines();
+		FontMetrics fontMetrics = g.getFontMetrics(getFont());
+		int width = 0;
+		for (String line : lines) width = Math.max(width, fontMetrics.stringWidth(line));
+		final int lineHeight = fontMetrics.getHeight();
+		bounds.setBounds(0, 0, width + PADDING * 2, lineHeight * lines.length + PADDING * 2);
+
+		g.setColor(BACKGROUND);
+		g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+		g.setColor(Color.WHITE);
+		g.setFont(getFont());
+		for (int i = 0; i < lines.length; i++) {
+			g.drawString(lines[i], PADDING, PADDING + i * lineHeight + fontMetrics.getAscent());
+		}
+	}
+}
@@ -0,0 +1,80 @@
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+
+// times every event dispatched on the EDT, and a daemon thread checks the running one every
+// half frame so the EDT's stack can be taken while it is still stuck in a long one
+public class EdtWatchdog extends EventQueue implements Runnable {
+	private static final long STALL_NANOS = 16_000_000; // a frame at 60 Hz
+	private static final long CHECK_MILLIS = 8;
+	private static final int MAX_FRAMES = 40;
+
+	private final Metrics metrics;
+	private volatile Thread dispatchThread;
+	// nanoTime the running event started, or an event running around a modal dialog resumed,
+	// 0 when the EDT is idle
+	private volatile long dispatchStart;
+	private volatile String stack; // taken during the current stall, null if none yet
+
+	private EdtWatchdog(Metrics metrics) {
+		this.metrics = metrics;
+	}
+
+	// replaces the system event queue, events already queued move over to the new one
+	public static void install(Metrics metrics) {
+		EdtWatchdog watchdog = new EdtWatchdog(metrics);
+		Toolkit.getDefaultToolkit().getSystemEventQueue().push(watchdog);
+		Thread thread = new Thread(watchdog, "edt-watchdog");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@Override
+	protected void dispatchEvent(AWTEvent event) {
+		// modal dialogs dispatch events from inside the one that opened them
+		final long outer = dispatchStart;
+		dispatchThread = Thread.currentThread();
+		stack = null;
+		dispatchStart = System.nanoTime();
+		try {
+			super.dispatchEvent(event);
+		} finally {
+			final long end = System.nanoTime();
+			final long elapsed = end - dispatchStart;
+			if (elapsed > STALL_NANOS) {
+				String name = event.getClass().getSimpleName();
+				metrics.stalled(elapsed, name.isEmpty() ? event.getClass().getName() : name, stack);
+			}
+			stack = null;
+			dispatchStart = outer != 0 ? end : 0; // the outer event is timed from here on
+		}
+	}
+
+	@Override
+	public void run() {
+		while (true) {
+			try {
+				Thread.sleep(CHECK_MILLIS);
+			} catch (InterruptedException e) {
+				return;
+			}
+			final long start = dispatchStart;
+			if (start == 0 || stack != null || System.nanoTime() - start <= STALL_NANOS) continue;
+
+			String taken = format(dispatchThread.getStackTrace());
+			// dropped if the event finished while the stack was being taken
+			if (dispatchStart == start) stack = taken;
+		}
+	}
+
+	private static String format(StackTraceElement[] frames) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < Math.min(frames.length, MAX_FRAMES); i++) {
+			text.append("at ").append(frames[i]).append('\n');
+		}
+		if (frames.length > MAX_FRAMES) {
+			text.append("... ").append(frames.length - MAX_FRAMES).append(" more\n");
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,45 @@
+// measures a game with the monotonic System.nanoTime clock instead of counting timer ticks
+public class GameClock {
+	private long startTime, stopTime; // nanoseconds
+	private boolean started, running;
+
+	public void start() {
+		start(0);
+	}
+
+	// starts as if it had already been running, to continue a saved game
+	public void start(long elapsedNanos) {
+		startTime = System.nanoTime() - elapsedNanos;
+		started = running = true;
+	}
+
+	public void stop() {
+		if (!running) return;
+		stopTime = System.nanoTime();
+		running = false;
+	}
+
+	public void reset() {
+		started = running = false;
+	}
+
+	public long getElapsedNanos() {
+		if (!started) return 0;
+		return (running ? System.nanoTime() : stopTime) - startTime;
+	}
+
+	public long getElapsedMillis() {
+		return getElapsedNanos() / 1_000_000;
+	}
+
+	public int getElapsedSeconds() {
+		return (int)(getElapsedNanos() / 1_000_000_000);
+	}
+
+	public boolean isStarted() {
+		return started;
+	}
+	public boolean isRunning() {
+		return running;
+	}
+}
@@ -0,0 +1,150 @@
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+// what happens in a game, published once by the rules and delivered to each subscriber, so the
+// view, the replay recorder and the statistics never look at the board to find out
+//
+// events are published and subscribed on one thread (the EDT in the window). Subscribers take
+// every event synchronously, or only the kinds they ask for, queued in order on an executor
+public class GameEvents {
+	// kinds of event, to subscribe to some of them
+	public static final int RESET = 1;
+	public static final int RESUMED = 1 << 1;
+	public static final int STARTED = 1 << 2;
+	public static final int REVEALED = 1 << 3;
+	public static final int FLAG_CHANGED = 1 << 4;
+	public static final int COUNTER_CHANGED = 1 << 5;
+	public static final int WON = 1 << 6;
+	public static final int LOST = 1 << 7;
+	public static final int ABANDONED = 1 << 8;
+	public static final int ALL = (1 << 9) - 1;
+
+	// counters shown on the scoreboard
+	public static final int FLAGS_COUNTER = 0; // mines left to flag
+	public static final int TIME_COUNTER = 1; // seconds
+
+	public interface Listener {
+		// a new game is ready and waiting for its first reveal, the board may be the one the
+		// last game used. Queued listeners may only read its size and topology
+		default void gameReset(Board board) {}
+		// a saved game continues on its own board, right after a reset to one of its size
+		default void gameResumed(Board board, long elapsedMillis) {}
+		// the first reveal placed the mines and started the clock
+		default void gameStarted() {}
+		// every cell one reveal or chord (Replay.REVEAL or Replay.CHORD) on cell revealed,
+		// cells belongs to the event and is never changed
+		default void cellsRevealed(int move, int cell, int[] cells) {}
+		// a cell cycled to Board.FLAGGED, Board.UNKNOWN or back to Board.HIDDEN
+		default void flagChanged(int cell, byte state) {}
+		default void counterChanged(int counter, int value) {}
+		default void gameWon(long elapsedMillis) {}
+		default void gameLost(long elapsedMillis) {}
+		// a new game was started before this one ended
+		default void gameAbandoned(long elapsedMillis) {}
+	}
+
+	private Listener[] listeners = new Listener[0];
+	private int[] kinds = new int[0];
+	private Executor[] executors = new Executor[0]; // null for synchronous delivery
+
+	public void subscribe(Listener listener) {
+		subscribe(listener, ALL, null);
+	}
+
+	// events of the given kinds are delivered on executor, or right away if it is null
+	public void subscribe(Listener listener, int kinds, Executor executor) {
+		final int n = listeners.length;
+		listeners = Arrays.copyOf(listeners, n + 1);
+		this.kinds = Arrays.copyOf(this.kinds, n + 1);
+		executors = Arrays.copyOf(executors, n + 1);
+		listeners[n] = listener;
+		this.kinds[n] = kinds;
+		executors[n] = executor;
+	}
+
+	// PUBLISHING
+	// one method for each Listener method, only queued deliveries allocate, a lambda each. The
+	// loop is repeated in each rather than shared, a shared one would take the event as a
+	// lambda capturing its arguments, allocated on every move even with no one listening
+
+	public void gameReset(Board board) {
+		for (int i = 0; i < listeners.length; i++) {
+			if ((kinds[i] & RESET) == 0) continue;
+			final Listener listener = listeners[i];
+			if (executors[i] == null) listener.gameReset(board);
+			else executors[i].execute(() -> listener.gameReset(board));
+		}
+	}
+
+	public void gameResumed(Board board, long elapsedMillis) {
+		for (int i = 0; i < listeners.length; i++) {
+			if ((kinds[i] & RESUMED) == 0) continue;
+			final Listener listener = listeners[i];
+			if (executors[i] == null) listener.gameResumed(board, elapsedMillis);
+			else executors[i].execute(() -> listener.gameResumed(board, elapsedMillis));
+		}
+	}
+
+	public void gameStarted() {
+		for (int i = 0; i < listeners.length; i++) {
+			if ((kinds[i] & STARTED) == 0) continue;
+			final Listener listener = listeners[i];
+			if (executors[i] == null) listener.gameStarted();
+			else executors[i].execute(listener::gameStarted);
+		}
+	}
+
+	public void cellsRevealed(int move, int cell, int[] cells) {
+		for (int i = 0; i < listeners.length; i++) {
+			if ((kinds[i] & REVEALED) == 0) continue;
+			final Listener listener = listeners[i];
+			if (executors[i] == null) listener.cellsRevealed(move, cell, cells);
+			else executors[i].execute(() -> listener.cellsRevealed(move, cell, cells));
+		}
+	}
+
+	public void flagChanged(int cell, byte state) {
+		for (int i = 0; i < listeners.length; i++) {
+			if ((kinds[i] & FLAG_CHANGED) == 0) continue;
+			final Listener listener = listeners[i];
+			if (executors[i] == null) listener.flagChanged(cell, state);
+			else executors[i].execute(() -> listener.flagChanged(cell, state));
+		}
+	}
+
+	public void counterChanged(int counter, int value) {
+		for (int i = 0; i < listeners.length; i++) {
+			if ((kinds[i] & COUNTER_CHANGED) == 0) continue;
+			final Listener listener = listeners[i];
+			if (executors[i] == null) listener.counterChanged(counter, value);
+			else executors[i].execute(() -> listener.counterChanged(counter, value));
+		}
+	}
+
+	public void gameWon(long elapsedMillis) {
+		for (int i = 0; i < listeners.length; i++) {
+			if ((kinds[i] & WON) == 0) continue;
+			final Listener listener = listeners[i];
+			if (executors[i] == null) listener.gameWon(elapsedMillis);
+			else executors[i].execute(() -> listener.gameWon(elapsedMillis));
+		}
+	}
+
+	public void gameLost(long elapsedMillis) {
+		for (int i = 0; i < listeners.length; i++) {
+			if ((kinds[i] & LOST) == 0) continue;
+			final Listener listener = listeners[i];
+			if (executors[i] == null) listener.gameLost(elapsedMillis);
+			else executors[i].execute(() -> listener.gameLost(elapsedMillis));
+		}
+	}
+
+	public void gameAbandoned(long elapsedMillis) {
+		for (int i = 0; i < listeners.length; i++) {
+			if ((kinds[i] & ABANDONED) == 0) continue;
+			final Listener listener = listeners[i];
+			if (executors[i] == null) listener.gameAbandoned(elapsedMillis);
+			else executors[i].execute(() -> listener.gameAbandoned(elapsedMillis));
+		}
+	}
+}
@@ -0,0 +1,205 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// hosts games over TCP, each connection is a session on its own virtual thread (on Java 21 and
+// later) playing one game at a time on a Board, so the rules are exactly the window's
+//
+// usage: java -cp Minesweeper.jar GameServer [port]
+//
+// requests: byte type, then for NEW_GAME ints rows, columns, mines and long seed, for REVEAL,
+//           CHORD and FLAG int cell (row * columns + column)
+// replies:  int length of the rest, byte game state, varint number of changed cells, then each
+//           cell as a varint index and a byte: its count once revealed, Board.MINE for a mine,
+//           or FLAGGED, UNKNOWN or HIDDEN after a flag. Moves that can't be made change nothing,
+//           requests that are invalid are answered with ERROR and an unknown type ends the
+//           session
+public class GameServer implements Runnable {
+	public static final int DEFAULT_PORT = 7396;
+	private static final int BACKLOG = 4096; // connections waiting to be accepted
+	private static final int MAX_SIZE = 3000; // the same limit as custom boards
+
+	// request types
+	public static final byte NEW_GAME = 0;
+	public static final byte REVEAL = 1;
+	public static final byte CHORD = 2;
+	public static final byte FLAG = 3;
+
+	// game states
+	public static final byte PLAYING = 0;
+	public static final byte WON = 1;
+	public static final byte LOST = 2;
+	public static final byte ERROR = 3;
+
+	// cells changed by a flag, counts and Board.MINE are never below -1
+	public static final byte FLAGGED = -2;
+	public static final byte UNKNOWN = -3;
+	public static final byte HIDDEN = -4;
+
+	private final ServerSocketChannel server;
+	private final ExecutorService sessions = newThreadPerTaskExecutor();
+
+	public GameServer(int port) throws IOException {
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(port), BACKLOG);
+	}
+
+	public int getPort() throws IOException {
+		return ((InetSocketAddress)server.getLocalAddress()).getPort();
+	}
+
+	// accepts connections until closed
+	@Override
+	public void run() {
+		try {
+			while (true) {
+				SocketChannel channel = server.accept();
+				sessions.execute(() -> serve(channel));
+			}
+		} catch (ClosedChannelException e) {
+			// closed by close()
+		} catch (IOException e) {
+			System.err.println("Server stopped: " + e);
+		}
+	}
+
+	public void close() throws IOException {
+		server.close();
+		sessions.shutdown();
+	}
+
+	// a virtual thread for every task, found at run time as the game is built for Java 17, where
+	// each task gets a platform thread instead
+	public static ExecutorService newThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+					.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	private static void serve(SocketChannel channel) {
+		try (channel) {
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			new Session(channel).run();
+		} catch (IOException e) {
+			// the client went away
+		}
+	}
+
+	// one connection, reads block only its own virtual thread
+	private static class Session {
+		private final SocketChannel channel;
+		private final ByteBuffer request = ByteBuffer.allocate(1 + 3 * 4 + 8);
+		private ByteBuffer reply = ByteBuffer.allocate(256); // grows with the largest reveal
+		private Board board; // null until the first game
+
+		private Session(SocketChannel channel) {
+			this.channel = channel;
+		}
+
+		private void run() throws IOException {
+			while (read(1)) {
+				final byte type = request.get();
+				if (type == NEW_GAME) {
+					read(3 * 4 + 8);
+					newGame(request.getInt(), request.getInt(), request.getInt(),
+							request.getLong());
+				} else if (type == REVEAL || type == CHORD || type == FLAG) {
+					read(4);
+					move(type, request.getInt());
+				} else {
+					return;
+				}
+			}
+		}
+
+		// false if the client closed the connection between requests
+		private boolean read(int length) throws IOException {
+			request.clear().limit(length);
+			while (request.hasRemaining()) {
+				if (channel.read(request) >= 0) continue;
+				if (request.position() == 0 && length == 1) return false;
+				throw new EOFException("Request cut short");
+			}
+			request.flip();
+			return true;
+		}
+
+		private void newGame(int rows, int columns, int mines, long seed) throws IOException {
+			if (rows < 1 || columns < 1 || rows > MAX_SIZE || columns > MAX_SIZE || mines < 0 ||
+					mines >= rows * columns) {
+				reply(ERROR, null);
+				return;
+			}
+			// the board is reused when the size is the same, as in the window
+			if (board != null && board.getRows() == rows && board.getColumns() == columns &&
+					board.getMines() == mines) board.reset(seed);
+			else board = new Board(rows, columns, mines, seed);
+			reply(PLAYING, null);
+		}
+
+		private void move(byte type, int cell) throws IOException {
+			if (board == null || board.isExploded() || board.isWin() || cell < 0 ||
+					cell >= board.getRows() * board.getColumns()) {
+				reply(ERROR, null);
+				return;
+			}
+			final int row = board.getRow(cell), col = board.getColumn(cell);
+			int[] cells;
+			if (type == REVEAL) {
+				cells = board.reveal(row, col);
+			} else if (type == CHORD) {
+				cells = board.chord(row, col);
+			} else if (board.getState(cell) == Board.REVEALED) {
+				cells = new int[0];
+			} else {
+				board.cycleFlag(row, col);
+				cells = new int[] {cell};
+			}
+			reply(board.isExploded() ? LOST : board.isWin() ? WON : PLAYING, cells);
+		}
+
+		private void reply(byte state, int[] cells) throws IOException {
+			final int count = cells != null ? cells.length : 0;
+			// at most 5 bytes a varint and a byte of value per cell
+			final int capacity = 4 + 1 + 5 + count * 6;
+			if (reply.capacity() < capacity) {
+				reply = ByteBuffer.allocate(Math.max(capacity, reply.capacity() * 2));
+			}
+			reply.clear().position(4);
+			reply.put(state);
+			Replay.putVarint(reply, count);
+			for (int k = 0; k < count; k++) {
+				Replay.putVarint(reply, cells[k]);
+				reply.put(getValue(cells[k]));
+			}
+			reply.putInt(0, reply.position() - 4).flip();
+			while (reply.hasRemaining()) channel.write(reply);
+		}
+
+		private byte getValue(int cell) {
+			switch (board.getState(cell)) {
+				case Board.REVEALED: return board.getCount(cell);
+				case Board.FLAGGED: return FLAGGED;
+				case Board.UNKNOWN: return UNKNOWN;
+				default: return HIDDEN;
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		GameServer server = new GameServer(args.length > 0 ? Integer.parseInt(args[0]) :
+				DEFAULT_PORT);
+		System.out.println("Listening on port " + server.getPort());
+		server.run();
+	}
+}
@@ -0,0 +1,281 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// plays games against a GameServer from many sessions at once, each on a virtual thread (on
+// Java 21 and later) with its own connection, and reports the latency of every move from request
+// to reply
+//
+// sessions connect first, then all play for the given time, starting a new game whenever one
+// ends. Moves reveal random hidden cells, and flag about 1 in 10 of them instead, with an
+// optional think time before each one of half to one and a half times the given time
+//
+// usage: java -cp Minesweeper.jar LoadGenerator [sessions] [seconds] [beginner|intermediate|
+//        expert|ROWSxCOLUMNS/MINES] [-host HOST] [-port PORT] [-think MS]
+public class LoadGenerator {
+	private static final int CONNECT_ATTEMPTS = 50; // the accept backlog can be full for a while
+
+	// move latencies in microseconds, kept to within 1/32 of their value
+	private static class Histogram {
+		private static final int SUB_BITS = 5;
+		private final AtomicLongArray counts = new AtomicLongArray((65 - SUB_BITS) << SUB_BITS);
+
+		private void record(long micros) {
+			counts.incrementAndGet(getIndex(Math.max(micros, 0)));
+		}
+
+		// values below 64 have their own buckets, then each power of 2 is split into 32
+		private static int getIndex(long value) {
+			if (value < 2 << SUB_BITS) return (int)value;
+			final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+			return (shift + 1 << SUB_BITS) + (int)(value >>> shift) - (1 << SUB_BITS);
+		}
+
+		// middle of the bucket
+		private static double getValue(int index) {
+			if (index < 2 << SUB_BITS) return index;
+			final int shift = (index >>> SUB_BITS) - 1;
+			final long low = (long)((index & (1 << SUB_BITS) - 1) + (1 << SUB_BITS)) << shift;
+			return low + (1L << shift) / 2.0;
+		}
+
+		private long getCount() {
+			long count = 0;
+			for (int i = 0; i < counts.length(); i++) count += counts.get(i);
+			return count;
+		}
+
+		private double getPercentile(double percent) {
+			final long rank = (long)Math.ceil(percent / 100 * getCount());
+			long seen = 0;
+			int last = 0;
+			for (int i = 0; i < counts.length(); i++) {
+				if (counts.get(i) == 0) continue;
+				seen += counts.get(i);
+				last = i;
+				if (seen >= Math.max(rank, 1)) break;
+			}
+			return getValue(last) / 1000; // milliseconds
+		}
+	}
+
+	private final InetSocketAddress address;
+	private final Difficulty difficulty;
+	private final long thinkMillis;
+	private final CountDownLatch connected, start;
+	private volatile long deadline; // nanoTime when sessions stop
+	private final Histogram latencies = new Histogram();
+	private final AtomicLong games = new AtomicLong(), wins = new AtomicLong();
+	private final AtomicInteger failed = new AtomicInteger();
+
+	private LoadGenerator(InetSocketAddress address, Difficulty difficulty, long thinkMillis,
+			int sessions) {
+		this.address = address;
+		this.difficulty = difficulty;
+		this.thinkMillis = thinkMillis;
+		connected = new CountDownLatch(sessions);
+		start = new CountDownLatch(1);
+	}
+
+	private void runSession(long seed) {
+		SocketChannel channel;
+		try {
+			channel = connect();
+		} catch (IOException e) {
+			failed.incrementAndGet();
+			connected.countDown();
+			return;
+		}
+		connected.countDown();
+
+		try (channel) {
+			start.await();
+			new Player(channel, new SplittableRandom(seed)).play();
+		} catch (IOException e) {
+			failed.incrementAndGet();
+		} catch (InterruptedException ignored) {}
+	}
+
+	private SocketChannel connect() throws IOException {
+		for (int attempt = 1; ; attempt++) {
+			try {
+				SocketChannel channel = SocketChannel.open(address);
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				return channel;
+			} catch (ConnectException e) {
+				if (attempt == CONNECT_ATTEMPTS) throw e;
+				try {
+					Thread.sleep(attempt * 10L);
+				} catch (InterruptedException interrupted) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	// one session's games, knowing only what the replies have shown
+	private class Player {
+		private final SocketChannel channel;
+		private final SplittableRandom random;
+		private final ByteBuffer request = ByteBuffer.allocate(1 + 3 * 4 + 8);
+		private ByteBuffer reply = ByteBuffer.allocate(256);
+		private final int cells = difficulty.getRows() * difficulty.getColumns();
+		// hidden cells are the first hiddenCount of hidden, position holds each cell's index
+		private final int[] hidden = new int[cells], position = new int[cells];
+		private final byte[] flags = new byte[cells]; // HIDDEN, FLAGGED or UNKNOWN
+		private int hiddenCount;
+
+		private Player(SocketChannel channel, SplittableRandom random) {
+			this.channel = channel;
+			this.random = random;
+		}
+
+		private void play() throws IOException, InterruptedException {
+			// sessions that all started together would otherwise move in bursts
+			if (thinkMillis > 0) Thread.sleep(random.nextLong(thinkMillis));
+			while (System.nanoTime() < deadline) {
+				request.clear();
+				request.put(GameServer.NEW_GAME).putInt(difficulty.getRows())
+						.putInt(difficulty.getColumns()).putInt(difficulty.getMines())
+						.putLong(random.nextLong());
+				if (send() != GameServer.PLAYING) throw new IOException("Game refused");
+				for (int i = 0; i < cells; i++) {
+					hidden[i] = position[i] = i;
+					flags[i] = GameServer.HIDDEN;
+				}
+				hiddenCount = cells;
+
+				byte state = GameServer.PLAYING;
+				while (state == GameServer.PLAYING && System.nanoTime() < deadline) {
+					if (thinkMillis > 0) {
+						Thread.sleep(thinkMillis / 2 + random.nextLong(thinkMillis + 1));
+					}
+					// flagged and unknown cells can't be revealed, so they are flagged again
+					final int cell = hidden[random.nextInt(hiddenCount)];
+					final boolean flag = flags[cell] != GameServer.HIDDEN ||
+							random.nextInt(10) == 0;
+					request.clear();
+					request.put(flag ? GameServer.FLAG : GameServer.REVEAL).putInt(cell);
+
+					final long sent = System.nanoTime();
+					state = send();
+					latencies.record((System.nanoTime() - sent) / 1000);
+					if (state == GameServer.ERROR) throw new IOException("Move refused");
+				}
+				if (state != GameServer.PLAYING) games.incrementAndGet();
+				if (state == GameServer.WON) wins.incrementAndGet();
+			}
+		}
+
+		// sends the request and applies the reply, returning the game state
+		private byte send() throws IOException {
+			request.flip();
+			while (request.hasRemaining()) channel.write(request);
+
+			read(4);
+			final int length = reply.getInt();
+			read(length);
+			final byte state = reply.get();
+			final int count = Replay.getVarint(reply);
+			for (int k = 0; k < count; k++) {
+				final int cell = Replay.getVarint(reply);
+				final byte value = reply.get();
+				if (value >= Board.MINE) remove(cell);
+				else flags[cell] = value;
+			}
+			return state;
+		}
+
+		private void read(int length) throws IOException {
+			if (reply.capacity() < length) reply = ByteBuffer.allocate(length);
+			reply.clear().limit(length);
+			while (reply.hasRemaining()) {
+				if (channel.read(reply) < 0) throw new EOFException("Server closed the session");
+			}
+			reply.flip();
+		}
+
+		// a revealed cell leaves the hidden cells, swapped with the last one
+		private void remove(int cell) {
+			final int i = position[cell], last = hidden[--hiddenCount];
+			hidden[i] = last;
+			position[last] = i;
+			hidden[hiddenCount] = cell;
+			position[cell] = hiddenCount;
+		}
+	}
+
+	private static Difficulty getDifficulty(String name) {
+		switch (name) {
+			case "beginner": return new Difficulty(9, 9, 10);
+			case "intermediate": return new Difficulty(16, 16, 40);
+			case "expert": return new Difficulty(16, 30, 99);
+		}
+		// ROWSxCOLUMNS/MINES
+		String[] size = name.split("[x/]");
+		if (size.length != 3) throw new IllegalArgumentException("Unknown difficulty: " + name);
+		return new Difficulty(Integer.parseInt(size[0]), Integer.parseInt(size[1]),
+				Integer.parseInt(size[2]));
+	}
+
+	public static void main(String[] args) throws Exception {
+		final int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		final int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+		Difficulty difficulty = getDifficulty(args.length > 2 ? args[2] : "expert");
+		String host = "localhost";
+		int port = GameServer.DEFAULT_PORT;
+		long thinkMillis = 0;
+		for (int i = 3; i < args.length; i++) {
+			if (args[i].equals("-host")) host = args[++i];
+			else if (args[i].equals("-port")) port = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-think")) thinkMillis = Long.parseLong(args[++i]);
+			else throw new IllegalArgumentException("Unknown option: " + args[i]);
+		}
+
+		LoadGenerator generator = new LoadGenerator(new InetSocketAddress(host, port),
+				difficulty, thinkMillis, sessions);
+		final long connecting = System.nanoTime();
+		SplittableRandom seeds = new SplittableRandom();
+		ExecutorService executor = GameServer.newThreadPerTaskExecutor();
+		for (int s = 0; s < sessions; s++) {
+			final long seed = seeds.nextLong();
+			executor.execute(() -> generator.runSession(seed));
+		}
+		executor.shutdown();
+		generator.connected.await();
+		final int playing = sessions - generator.failed.get();
+		System.out.printf("%d sessions connected in %.1f s, %d failed%n", playing,
+				(System.nanoTime() - connecting) / 1e9, generator.failed.get());
+
+		final long start = System.nanoTime();
+		generator.deadline = start + seconds * 1_000_000_000L;
+		generator.start.countDown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		final double elapsed = (System.nanoTime() - start) / 1e9;
+
+		Histogram latencies = generator.latencies;
+		final long moves = latencies.getCount();
+		final int cores = Runtime.getRuntime().availableProcessors();
+		System.out.printf("%dx%d, %d mines, think time %d ms, %d cores%n", difficulty.getRows(),
+				difficulty.getColumns(), difficulty.getMines(), thinkMillis, cores);
+		System.out.printf("%d moves, %.0f moves/s, %d games finished (%d won), %d sessions " +
+				"failed%n", moves, moves / elapsed, generator.games.get(), generator.wins.get(),
+				generator.failed.get() - (sessions - playing));
+		System.out.printf("move latency p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+				latencies.getPercentile(50), latencies.getPercentile(90),
+				latencies.getPercentile(99), latencies.getPercentile(100));
+		System.out.printf("%.0f sessions per core, %.0f moves/s per core%n",
+				(double)playing / cores, moves / elapsed / cores);
+	}
+}
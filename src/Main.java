@@ -1,15 +1,44 @@
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.plaf.ColorUIResource;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.IOException;
-import java.util.Timer;
-import java.util.TimerTask;
-
-public class Main implements ActionListener, MouseListener {
-	private final int TILE_SIZE = 32; // 2x original tile size
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+public class Main implements ActionListener, MouseListener, BoardInput.Handler {
+	private final int DEFAULT_TILE_SIZE = 32; // 2x original tile size
+	private final int[] ZOOM_TILE_SIZES = {16, 24, 32, 48, 64};
 	private final int SCOREBOARD_PADDING = 5;
-	
+	private final int CLOCK_REFRESH_MS = 100;
+	private final int NO_GUESS_POOL_SIZE = 2; // boards kept ready for each first click block
+	private final int SOLVER_TIME_LIMIT_MS = 2000; // for one hint or round of auto-solving
+	private final float MENU_FONT_SIZE = 10.5f, MENU_ITEM_FONT_SIZE = 8.5f, LABEL_FONT_SIZE = 16f;
+
+	// prints the time to the first frame, and to the first frame with every asset loaded
+	private final boolean REPORT_STARTUP = Boolean.getBoolean("minesweeper.startupTime");
+	// exits once startup is measured, for a training run that records the classes loaded
+	private final boolean EXIT_AFTER_STARTUP = Boolean.getBoolean("minesweeper.exitAfterStartup");
+
+	// games, statistics and saves are kept here
+	private final Path DATA_DIRECTORY = Paths.get(System.getProperty("minesweeper.dataDirectory",
+			Paths.get(System.getProperty("user.home"), ".minesweeper").toString()));
+	private final String REPLAY_FILE = "replays.msr";
+	private final String SAVE_FILE = "game.sav";
+
+	private final String TITLE = "Minesweeper";
+	// shown while a no guessing game is played on an ordinary board, none having been found
+	private final String GUESSING_TITLE = TITLE + " (no board without guessing was found)";
+
 	// placeholder for number of digits in scoreboard panels
 	private final String SCOREBOARD_PLACEHOLDER = "000";
 
@@ -29,31 +58,104 @@ public class Main implements ActionListener, MouseListener {
 	private JFrame frame;
 	private JPanel mainPanel, gamePanel, scoreboardPanel, flagsPanel, timePanel;
 	private JMenuBar menuBar;
-	private JMenuItem beginnerItem, intermediateItem, expertItem, defaultItem, monochromeItem,
-			darkItem;
+	private JMenuItem beginnerItem, intermediateItem, expertItem, customItem, defaultItem,
+			monochromeItem, darkItem;
+	private JMenuItem[] zoomItems;
+	private JMenuItem hintItem, autoSolveItem, replaysItem, statisticsItem;
+	private JCheckBoxMenuItem noGuessItem, debugOverlayItem;
+	private JRadioButtonMenuItem squareItem, wraparoundItem, hexagonalItem;
 	private JLabel[] flagsLabels, timeLabels;
+	// icon index shown by each scoreboard label, -1 when it needs to be redrawn
+	private int[] flagsDigits, timeDigits;
 	private JButton resetButton;
+	private BoardView boardView;
+	private JScrollPane boardScrollPane;
 
 	private Theme theme;
-	private ImageIcon tileIcon, revealedTileIcon, mineIcon, flagIcon, unknownIcon, mineSelectedIcon,
-			incorrectGuessIcon, resetIcon, resetDownIcon, resetTileDownIcon, resetWinIcon,
-			resetLoseIcon;
-	private Font menuFont, labelFont;
+	private SpriteAtlas spriteAtlas;
+	private int tileSize = DEFAULT_TILE_SIZE;
+	private ImageIcon resetIcon, resetDownIcon, resetTileDownIcon, resetWinIcon, resetLoseIcon;
+	private JLabel controlsLabel;
 
 	// ordered in increasing value (negative icon is last)
-	private ImageIcon[] numberIcons, scoreboardNumberIcons;
+	private ImageIcon[] scoreboardNumberIcons;
 
-	private JToggleButton[][] gameGrid;
+	private Board board;
 	private Difficulty difficulty;
-	private Timer timer;
-	private int flags;
-	private int time; // seconds
-	private boolean firstReveal;
+	// every change to the game goes out as an event, the view, replays and statistics follow it
+	private final GameEvents events = new GameEvents();
+	// replays, statistics and no guessing only cover square boards
+	private Topology topology = Topology.SQUARE;
+	private GameClock clock;
+	private Timer clockTimer; // refreshes the time panel on the EDT while the clock runs
+	private int time; // seconds shown in the time panel
+	private NoGuessPool noGuessPool; // created when no guessing is first turned on
+	// no guessing board being generated for the first reveal, null when none is awaited
+	private CompletableFuture<OptionalLong> pendingSeed;
+	// solver working on a copy of the board, null when none is running
+	private CompletableFuture<?> pendingSolve;
+	private ReplayRecorder recorder; // null if the replay archive can't be written
+	private Statistics statistics; // null if statistics can't be written
+	private Metrics metrics;
+	private DebugOverlay debugOverlay;
+
+	private final long launchTime; // nanoTime when main started
+	private long firstFrameTime; // nanoTime of the first paint, 0 until then
+	private int assetsLoading = 3; // fonts and sprites not yet handed to the EDT
+	private boolean startupMeasured;
+
+	public Main(long launchTime) {
+		this.launchTime = launchTime;
+
+		// INSTRUMENTATION
+		// every event on the EDT is timed from here on
+		metrics = new Metrics();
+		EdtWatchdog.install(metrics);
+
+		// the game, difficulty and theme open when the window was last closed
+		SavedGame saved = SavedGame.read(DATA_DIRECTORY.resolve(SAVE_FILE));
+		theme = DEFAULT;
+		if (saved != null) {
+			for (Theme t : new Theme[] {DEFAULT, MONOCHROME, DARK}) {
+				if (t.getIconSet().equals(saved.getIconSet())) theme = t;
+			}
+		}
 
-	public Main() {
-		frame = new JFrame("Minesweeper");
+		// ASSETS
+		// fonts and sprites are decoded on other threads while the window is built and shown,
+		// then handed to the EDT
+		spriteAtlas = new SpriteAtlas();
+		final String iconSet = theme.getIconSet();
+		CompletableFuture.runAsync(() -> spriteAtlas.get(iconSet, DEFAULT_TILE_SIZE))
+				.whenComplete((result, e) -> SwingUtilities.invokeLater(this::spritesLoaded));
+		// a font that fails to load, even with an exception, is handed over as null and the
+		// default font stays, so startup is still measured
+		CompletableFuture.supplyAsync(() -> loadFont("/fonts/mine-sweeper.ttf"))
+				.whenComplete((font, e) -> SwingUtilities.invokeLater(() -> setMenuFont(font)));
+		CompletableFuture.supplyAsync(() -> loadFont("/fonts/FORCED SQUARE.ttf"))
+				.whenComplete((font, e) -> SwingUtilities.invokeLater(() -> setLabelFont(font)));
+
+		frame = new JFrame(TITLE);
 		frame.setResizable(false);
 		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		frame.setGlassPane(debugOverlay = new DebugOverlay(metrics)); // hidden until turned on
+		frame.addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosing(WindowEvent e) {
+				saveGame();
+				finishRecording();
+				if (recorder != null) {
+					try {
+						recorder.close(); // waits for the last game to be written
+					} catch (IOException ignored) {}
+				}
+				if (statistics != null) {
+					try {
+						statistics.close(); // waits for the last game to be written
+					} catch (IOException ignored) {}
+				}
+			}
+		});
 
 		// UIManager
 		try {
@@ -65,20 +167,40 @@ public class Main implements ActionListener, MouseListener {
 		UIManager.put("Menu.border", new EmptyBorder(4, 4, 4, 4));
 		UIManager.put("MenuItem.border", new EmptyBorder(4, 4, 4, 4));
 
-		// FONT
+		// REPLAYS
 		try {
-			GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
-			menuFont = Font.createFont(Font.TRUETYPE_FONT, getClass()
-					.getResourceAsStream("/fonts/mine-sweeper.ttf"));
-			labelFont = Font.createFont(Font.TRUETYPE_FONT, getClass()
-					.getResourceAsStream("/fonts/FORCED SQUARE.ttf"));
-			ge.registerFont(menuFont);
-			ge.registerFont(labelFont);
-		} catch (IOException | FontFormatException ignored) {}
-
-		loadTheme(theme = DEFAULT);
-
-		mainPanel = new JPanel();
+			recorder = new ReplayRecorder(DATA_DIRECTORY.resolve(REPLAY_FILE));
+			events.subscribe(recorder);
+		} catch (IOException ignored) {}
+
+		// STATISTICS
+		try {
+			statistics = new Statistics(DATA_DIRECTORY);
+			statistics.subscribe(events);
+		} catch (IOException ignored) {}
+
+		// BOARD VIEW
+		// the board and scoreboard are laid out at their final size and drawn once the sprites
+		// are loaded
+		boardView = new BoardView();
+		boardView.setTileSize(tileSize);
+		boardView.setMetrics(metrics);
+		events.subscribe(boardView);
+		new BoardInput(boardView, this);
+		boardScrollPane = new JScrollPane(boardView);
+		boardScrollPane.setBorder(null);
+
+		loadTheme(theme);
+
+		mainPanel = new JPanel() {
+			private static final long serialVersionUID = -2893571658419742870L;
+
+			@Override
+			public void paint(Graphics g) {
+				super.paint(g);
+				if (!startupMeasured) framePainted();
+			}
+		};
 		mainPanel.setLayout(new BorderLayout());
 
 		scoreboardPanel = new JPanel();
@@ -88,22 +210,20 @@ public class Main implements ActionListener, MouseListener {
 		flagsPanel = new JPanel();
 		flagsPanel.setLayout(new GridLayout(1, SCOREBOARD_PLACEHOLDER.length()));
 		flagsLabels = new JLabel[SCOREBOARD_PLACEHOLDER.length()];
-		// add icons to flags panel
+		flagsDigits = new int[flagsLabels.length];
+		Arrays.fill(flagsDigits, -1); // icons are set once the sprites are loaded
 		for (int i = 0; i < flagsLabels.length; i++) {
-			flagsLabels[i] = new JLabel(scoreboardNumberIcons[Character.getNumericValue(
-					SCOREBOARD_PLACEHOLDER.charAt(i))]);
-			flagsPanel.add(flagsLabels[i]);
+			flagsPanel.add(flagsLabels[i] = new JLabel());
 		}
 
 		// TIME PANEL
 		timePanel = new JPanel();
 		timePanel.setLayout(new GridLayout(1, SCOREBOARD_PLACEHOLDER.length()));
 		timeLabels = new JLabel[SCOREBOARD_PLACEHOLDER.length()];
-		//add icons to time panel
+		timeDigits = new int[timeLabels.length];
+		Arrays.fill(timeDigits, -1);
 		for (int i = 0; i < timeLabels.length; i++) {
-			timeLabels[i] = new JLabel(scoreboardNumberIcons[Character.getNumericValue(
-					SCOREBOARD_PLACEHOLDER.charAt(i))]);
-			timePanel.add(timeLabels[i]);
+			timePanel.add(timeLabels[i] = new JLabel());
 		}
 
 		// RESET BUTTON
@@ -111,6 +231,9 @@ public class Main implements ActionListener, MouseListener {
 		resetButton.setBorderPainted(false);
 		resetButton.setFocusPainted(false);
 		resetButton.addMouseListener(this);
+		// the scoreboard's height is the reset button's, so it is right before the icons load
+		resetButton.setPreferredSize(new Dimension(SpriteAtlas.RESET_BUTTON_SIZE,
+				SpriteAtlas.RESET_BUTTON_SIZE));
 
 		// CONSTRAINTS FOR SCOREBOARD PANEL
 		GridBagConstraints constraints = new GridBagConstraints();
@@ -127,231 +250,215 @@ public class Main implements ActionListener, MouseListener {
 
 		mainPanel.add(scoreboardPanel, BorderLayout.NORTH);
 
-		createMenu();
-		init(BEGINNER); // starts on default difficulty
+		// GAME PANEL
+		// the board is centered in case the scoreboard is wider than it
+		gamePanel = new JPanel();
+		gamePanel.setLayout(new GridBagLayout());
+		gamePanel.add(boardScrollPane);
+		mainPanel.add(gamePanel, BorderLayout.CENTER);
+		frame.getContentPane().add(mainPanel);
+		setBorders();
+
+		// swing timers share one scheduler thread and fire on the EDT
+		clock = new GameClock();
+		clockTimer = new Timer(CLOCK_REFRESH_MS, this);
+
+		// SCOREBOARD EVENTS
+		// the counters, reset button and clock refresh follow the game like the board does
+		events.subscribe(new GameEvents.Listener() {
+			@Override
+			public void gameReset(Board board) {
+				clockTimer.stop();
+				resetButton.setIcon(resetIcon);
+				resetButton.setPressedIcon(resetDownIcon);
+				resetButton.setBorder(null);
+			}
 
-		frame.setLocationRelativeTo(null); // center window
-		frame.setVisible(true);
-	}
+			@Override
+			public void gameResumed(Board board, long elapsedMillis) {
+				clockTimer.start();
+			}
 
-	// recursively expand tiles
-	public void expand(final int row, final int col) {
-		if (gameGrid[row][col].getIcon() != tileIcon) return; // only unrevealed tiles should expand
+			@Override
+			public void gameStarted() {
+				clockTimer.start();
+			}
 
-		int mineCount = (Integer)gameGrid[row][col].getClientProperty("mines");
-		if (mineCount > 0) {
-			gameGrid[row][col].setIcon(numberIcons[mineCount - 1]);
-		} else {
-			gameGrid[row][col].setIcon(revealedTileIcon);
-			// expand adjacent tiles
-			for (int r = row - 1; r <= row + 1; r++) {
-				for (int c = col - 1; c <= col + 1; c++) {
-					if (r < 0 || c < 0 || r >= gameGrid.length || c >= gameGrid[0].length) continue;
-					expand(r, c);
-				}
+			@Override
+			public void counterChanged(int counter, int value) {
+				updateScoreboard(value, counter == GameEvents.FLAGS_COUNTER ? "flags" : "time");
 			}
-		}
-		gameGrid[row][col].setPressedIcon(gameGrid[row][col].getIcon());
-		gameGrid[row][col].putClientProperty("enabled", false);
-	}
-
-	public void setMines(final int initialRow, final int initialCol) {
-		for (int i = 0; i < difficulty.getMines(); i++) {
-			// SET MINES
-			// first revealed tile will never be a mine or have mines adjacent to it
-			int row, col;
-			do {
-				row = (int)(Math.random() * gameGrid.length);
-				col = (int)(Math.random() * gameGrid[0].length);
-			} while (Math.abs(row - initialRow) <= 1 || Math.abs(col - initialCol) <= 1 ||
-					(Integer)gameGrid[row][col].getClientProperty("mines") == -1);
-
-			//"mines" refers to the number of adjacent mines (mine = -1)
-			gameGrid[row][col].putClientProperty("mines", -1);
-
-			// SET MINE COUNTS
-			// adds 1 to "mines" property of all adjacent tiles
-			for (int r = row - 1; r <= row + 1; r++) {
-				for (int c = col - 1; c <= col + 1; c++) {
-					if (r < 0 || c < 0 || r >= gameGrid.length || c >= gameGrid[0].length) continue;
-					if ((Integer)gameGrid[r][c].getClientProperty("mines") != -1) {
-						gameGrid[r][c].putClientProperty("mines", (Integer)gameGrid[r][c]
-								.getClientProperty("mines") + 1);
-					}
-				}
+
+			@Override
+			public void gameWon(long elapsedMillis) {
+				clockTimer.stop();
+				resetButton.setIcon(resetWinIcon);
+				resetButton.setBorder(null);
 			}
-		}
-	}
 
-	public boolean isWin() {
-		// win condition: flags placed on all mines and nowhere else or all non-mine tiles revealed
-		if (flags < 0) return false;
-		for (int r = 0; r < gameGrid.length; r++) {
-			for (int c = 0; c < gameGrid[0].length; c++) {
-				if (gameGrid[r][c].getIcon() == flagIcon || gameGrid[r][c].getIcon() == unknownIcon
-						|| gameGrid[r][c].getIcon() == tileIcon) {
-					if ((Integer)gameGrid[r][c].getClientProperty("mines") != -1) return false;
-				}
+			@Override
+			public void gameLost(long elapsedMillis) {
+				clockTimer.stop();
+				resetButton.setIcon(resetLoseIcon);
+				resetButton.setBorder(null);
 			}
+		});
+
+		createMenu();
+		if (saved != null) {
+			// a game is only resumed once, even if the next one is never saved
+			try {
+				Files.delete(DATA_DIRECTORY.resolve(SAVE_FILE));
+			} catch (IOException ignored) {}
+			resume(saved);
 		}
-		return true;
+		else init(BEGINNER); // starts on default difficulty
+
+		frame.setLocationRelativeTo(null); // center window
+		frame.setVisible(true);
 	}
 
 	public void endGame(boolean win) {
-		timer.cancel();
-
-		// set reset button icon
-		if (win) resetButton.setIcon(resetWinIcon);
-		else resetButton.setIcon(resetLoseIcon);
-		resetButton.setBorder(null);
-
-		for (int r = 0; r < gameGrid.length; r++) {
-			for (int c = 0; c < gameGrid[0].length; c++) {
-				if (win) {
-					// set icons of empty & unknown tiles that have mines to flag icon
-					if (gameGrid[r][c].getIcon() == tileIcon ||
-							gameGrid[r][c].getIcon() == unknownIcon) {
-						gameGrid[r][c].setIcon(flagIcon);
-					}
-				} else {
-					// reveal mines
-					if ((Integer)gameGrid[r][c].getClientProperty("mines") == -1) {
-						if (gameGrid[r][c].getIcon() != flagIcon &&
-								gameGrid[r][c].getIcon() != mineSelectedIcon) {
-							gameGrid[r][c].setIcon(mineIcon);
-						}
-					} else {
-						if (gameGrid[r][c].getIcon() == flagIcon) {
-							gameGrid[r][c].setIcon(incorrectGuessIcon);
-						}
-					}
-				}
-				// disable button
-				gameGrid[r][c].setDisabledIcon(gameGrid[r][c].getIcon());
-				gameGrid[r][c].setEnabled(false);
-			}
+		clock.stop();
+		updateTime();
+		if (win) {
+			events.counterChanged(GameEvents.FLAGS_COUNTER, 0); // every mine is accounted for
+			events.gameWon(clock.getElapsedMillis());
+		} else {
+			events.gameLost(clock.getElapsedMillis());
 		}
+	}
 
-		if (win) updateScoreboard(0, "flags");
+	public void updateTime() {
+		// the first second is counted as soon as the clock starts
+		int seconds = clock.isStarted() ? clock.getElapsedSeconds() + 1 : 0;
+		if (seconds != time) events.counterChanged(GameEvents.TIME_COUNTER, time = seconds);
 	}
 
 	public void updateScoreboard(int value, String component) {
+		if (scoreboardNumberIcons == null) return; // shown once the sprites are loaded
 		// don't display numbers larger than scoreboard allows
 		if (Integer.toString(value).length() > SCOREBOARD_PLACEHOLDER.length()) return;
-		
-		boolean negative = value < 0;
-		value = Math.abs(value);
-		// convert number to scoreboard format
-		String panelStr = SCOREBOARD_PLACEHOLDER.substring(0,
-				SCOREBOARD_PLACEHOLDER.length() - Integer.toString(value).length()) + value;
 
+		JLabel[] labels;
+		int[] digits;
 		if (component.equals("flags")) { // set flags panel icons
-			for (int i = 0; i < flagsLabels.length; i++) {
-				flagsLabels[i].setIcon(scoreboardNumberIcons[Character.getNumericValue(
-						panelStr.charAt(i))]);
-			}
-			if (negative) {
-				flagsLabels[0].setIcon(scoreboardNumberIcons[scoreboardNumberIcons.length - 1]);
-			}
+			labels = flagsLabels;
+			digits = flagsDigits;
 		} else if (component.equals("time")) { // set time panel icons
-			for (int i = 0; i < timeLabels.length; i++) {
-				timeLabels[i].setIcon(scoreboardNumberIcons[Character.getNumericValue(
-						panelStr.charAt(i))]);
-			}
-			if (negative) {
-				timeLabels[0].setIcon(scoreboardNumberIcons[scoreboardNumberIcons.length - 1]);
-			}
+			labels = timeLabels;
+			digits = timeDigits;
+		} else {
+			return;
 		}
+
+		// only labels whose digit changed get a new icon
+		int remaining = Math.abs(value);
+		for (int i = labels.length - 1; i >= 0; i--) {
+			setDigit(labels, digits, i, remaining % 10);
+			remaining /= 10;
+		}
+		if (value < 0) setDigit(labels, digits, 0, scoreboardNumberIcons.length - 1);
+	}
+
+	private void setDigit(JLabel[] labels, int[] digits, int i, int digit) {
+		if (digits[i] == digit) return;
+		digits[i] = digit;
+		labels[i].setIcon(scoreboardNumberIcons[digit]);
 	}
 
+	// starts a new game, reusing the board and layout when the size and topology have not changed
 	public void init(Difficulty difficulty) {
-		final int ROWS = difficulty.getRows(), COLUMNS = difficulty.getColumns();
+		final long start = System.nanoTime();
+		final boolean resized = this.difficulty == null ||
+				difficulty.getRows() != this.difficulty.getRows() ||
+				difficulty.getColumns() != this.difficulty.getColumns() ||
+				board.getTopology() != topology;
 
 		// RESET
-		frame.getContentPane().remove(mainPanel);
-		if (gamePanel != null) mainPanel.remove(gamePanel);
-		if (timer != null) timer.cancel();
+		if (board != null && board.isMinesSet() && !board.isExploded() && !board.isWin()) {
+			events.gameAbandoned(clock.getElapsedMillis());
+		}
+		clock.reset();
+		if (pendingSeed != null) {
+			pendingSeed = null; // its board is dropped when it arrives
+			boardView.setCursor(null);
+		}
+		frame.setTitle(TITLE);
+		if (pendingSolve != null) {
+			pendingSolve = null; // its answer is dropped when it arrives
+			setSolverEnabled(true);
+		}
 
 		// INITIALIZE GAME VARIABLES
 		this.difficulty = difficulty;
-		gameGrid = new JToggleButton[ROWS][COLUMNS];
-		timer = new Timer();
-		flags = difficulty.getMines();
+		if (!resized && board.getMines() == difficulty.getMines()) board.reset();
+		else board = new Board(difficulty, topology);
 		time = 0;
-		firstReveal = true;
+		if (noGuessItem.isSelected()) noGuessPool.prepare(difficulty);
+
+		// TILES, RESET BUTTON, FLAGS AND TIME PANELS
+		events.gameReset(board);
+		if (resized) frame.pack();
+		events.counterChanged(GameEvents.FLAGS_COUNTER, board.getFlags());
+		events.counterChanged(GameEvents.TIME_COUNTER, time);
+		metrics.initialized(start, difficulty.getRows() * difficulty.getColumns());
+	}
 
-		// SCOREBOARD PANEL
+	public void setBorders() {
 		scoreboardPanel.setBorder(BorderFactory.createCompoundBorder(
 			new EmptyBorder(CustomBorder.getWidth() + SCOREBOARD_PADDING, CustomBorder.getWidth() +
 					SCOREBOARD_PADDING, 2 * CustomBorder.getHSWidth() + SCOREBOARD_PADDING,
 					CustomBorder.getWidth() + SCOREBOARD_PADDING),
 			new CustomBorder.ScoreboardBorder(SCOREBOARD_PADDING, theme)
 		));
-
-		// GAME PANEL
-		gamePanel = new JPanel();
-		gamePanel.setLayout(new GridLayout(ROWS, COLUMNS));
 		gamePanel.setBorder(BorderFactory.createCompoundBorder(
 			new EmptyBorder(CustomBorder.getWidth() * 2 / 3,
 					CustomBorder.getWidth(), CustomBorder.getWidth(), CustomBorder.getWidth()),
 			new CustomBorder.GameBorder(theme)
 		));
+	}
 
-		// FRAME SIZE
-		if (difficulty == BEGINNER) mainPanel.setPreferredSize(new Dimension(311, 406));
-		else if (difficulty == INTERMEDIATE) mainPanel.setPreferredSize(new Dimension(528, 598));
-		else mainPanel.setPreferredSize(new Dimension(962, 598));
-
-		// TILES
-		for (int row = 0; row < ROWS; row++) {
-			for (int col = 0; col < COLUMNS; col++) {
-				gameGrid[row][col] = new JToggleButton();
-				gameGrid[row][col].setPreferredSize(new Dimension(TILE_SIZE, TILE_SIZE));
-				gameGrid[row][col].setIcon(tileIcon);
-				gameGrid[row][col].setPressedIcon(revealedTileIcon);
-				gameGrid[row][col].setBorderPainted(false);
-				gameGrid[row][col].setFocusPainted(false);
-				gameGrid[row][col].putClientProperty("mines", 0);
-				// "enabled" allows for disabling a button but keeping it clickable
-				// useful for revealing adjacent tiles
-				gameGrid[row][col].putClientProperty("enabled", true);
-				gameGrid[row][col].addMouseListener(this);
-				gamePanel.add(gameGrid[row][col]);
-			}
-		}
+	public void loadTheme(Theme theme) {
+		// colors are UI resources so updateComponentTreeUI can replace them on existing menus
+		UIManager.put("MenuBar.background", new ColorUIResource(theme.getMenuBackground()));
+		UIManager.put("Menu.foreground", new ColorUIResource(theme.getMenuForeground()));
+		UIManager.put("Menu.background", new ColorUIResource(theme.getMenuBackground()));
+		UIManager.put("Menu.selectionForeground",
+				new ColorUIResource(theme.getMenuSelectionForeground()));
+		UIManager.put("Menu.selectionBackground",
+				new ColorUIResource(theme.getMenuSelectionBackground()));
+		UIManager.put("MenuItem.foreground",
+				new ColorUIResource(theme.getMenuSelectionForeground()));
+		UIManager.put("MenuItem.background",
+				new ColorUIResource(theme.getMenuSelectionBackground()));
+		UIManager.put("MenuItem.selectionForeground",
+				new ColorUIResource(theme.getMenuForeground()));
+		UIManager.put("MenuItem.selectionBackground",
+				new ColorUIResource(theme.getMenuBackground()));
+		UIManager.put("Label.foreground", new ColorUIResource(theme.getMenuSelectionForeground()));
+		UIManager.put("Label.background", new ColorUIResource(theme.getMenuSelectionBackground()));
+	}
 
-		// ADD GAME PANEL
-		mainPanel.add(gamePanel, BorderLayout.CENTER);
-		frame.getContentPane().add(mainPanel);
-		frame.pack();
-		frame.revalidate();
+	// applies a theme to the current game in place, keeping the board, timer and flags
+	public void setTheme(Theme theme) {
+		loadTheme(this.theme = theme);
+		setIcons(theme.getIconSet());
+		SwingUtilities.updateComponentTreeUI(menuBar);
+		setBorders();
+		updateIcons();
+	}
 
-		// RESET BUTTON
-		resetButton.setIcon(resetIcon);
+	// icons that depend on the game state
+	private void updateIcons() {
+		if (board.isExploded()) resetButton.setIcon(resetLoseIcon);
+		else if (board.isWin()) resetButton.setIcon(resetWinIcon);
+		else resetButton.setIcon(resetIcon);
 		resetButton.setPressedIcon(resetDownIcon);
-		resetButton.setBorder(null);
-
-		// UPDATE FLAGS AND TIME PANELS
-		updateScoreboard(flags, "flags");
+		updateScoreboard(board.isWin() ? 0 : board.getFlags(), "flags");
 		updateScoreboard(time, "time");
 	}
 
-	public void loadTheme(Theme theme) {
-		UIManager.put("MenuBar.background", theme.getMenuBackground());
-		UIManager.put("Menu.foreground", theme.getMenuForeground());
-		UIManager.put("Menu.background", theme.getMenuBackground());
-		UIManager.put("Menu.selectionForeground", theme.getMenuSelectionForeground());
-		UIManager.put("Menu.selectionBackground", theme.getMenuSelectionBackground());
-		UIManager.put("MenuItem.foreground", theme.getMenuSelectionForeground());
-		UIManager.put("MenuItem.background", theme.getMenuSelectionBackground());
-		UIManager.put("MenuItem.selectionForeground", theme.getMenuForeground());
-		UIManager.put("MenuItem.selectionBackground", theme.getMenuBackground());
-		UIManager.put("Label.foreground", theme.getMenuSelectionForeground());
-		UIManager.put("Label.background", theme.getMenuSelectionBackground());
-		setIcons(theme.getIconSet());
-		createMenu();
-	}
-
 	public void createMenu() {
 		menuBar = new JMenuBar();
 
@@ -360,6 +467,21 @@ public class Main implements ActionListener, MouseListener {
 		gameMenu.add(beginnerItem = getMenuItem("Beginner"));
 		gameMenu.add(intermediateItem = getMenuItem("Intermediate"));
 		gameMenu.add(expertItem = getMenuItem("Expert"));
+		gameMenu.add(customItem = getMenuItem("Custom"));
+		gameMenu.addSeparator();
+		gameMenu.add(noGuessItem = (JCheckBoxMenuItem)getMenuItem(
+				new JCheckBoxMenuItem("No Guessing")));
+		gameMenu.addSeparator();
+		ButtonGroup topologyGroup = new ButtonGroup();
+		gameMenu.add(squareItem = (JRadioButtonMenuItem)getMenuItem(
+				new JRadioButtonMenuItem("Square", true)));
+		gameMenu.add(wraparoundItem = (JRadioButtonMenuItem)getMenuItem(
+				new JRadioButtonMenuItem("Wraparound")));
+		gameMenu.add(hexagonalItem = (JRadioButtonMenuItem)getMenuItem(
+				new JRadioButtonMenuItem("Hexagonal")));
+		topologyGroup.add(squareItem);
+		topologyGroup.add(wraparoundItem);
+		topologyGroup.add(hexagonalItem);
 
 		// ICONS MENU
 		JMenu themeMenu = getMenu("Theme");
@@ -367,9 +489,33 @@ public class Main implements ActionListener, MouseListener {
 		themeMenu.add(monochromeItem = getMenuItem("Monochrome"));
 		themeMenu.add(darkItem = getMenuItem("Dark"));
 
+		// ZOOM MENU
+		JMenu zoomMenu = getMenu("Zoom");
+		zoomItems = new JMenuItem[ZOOM_TILE_SIZES.length];
+		for (int i = 0; i < zoomItems.length; i++) {
+			zoomMenu.add(zoomItems[i] = getMenuItem(ZOOM_TILE_SIZES[i] * 100 / DEFAULT_TILE_SIZE +
+					"%"));
+		}
+
+		// SOLVER MENU
+		JMenu solverMenu = getMenu("Solver");
+		solverMenu.add(hintItem = getMenuItem("Hint"));
+		solverMenu.add(autoSolveItem = getMenuItem("Auto-solve safe moves"));
+
+		// REPLAYS MENU
+		JMenu replaysMenu = getMenu("Replays");
+		replaysMenu.add(replaysItem = getMenuItem("Watch Replays"));
+
+		// STATISTICS MENU
+		JMenu statisticsMenu = getMenu("Statistics");
+		statisticsMenu.add(statisticsItem = getMenuItem("Best Times"));
+		statisticsMenu.addSeparator();
+		statisticsMenu.add(debugOverlayItem = (JCheckBoxMenuItem)getMenuItem(
+				new JCheckBoxMenuItem("Debug Overlay")));
+
 		// CONTROLS MENU
 		JMenu controlsMenu = getMenu("Controls");
-		JLabel controlsLabel = new JLabel(
+		controlsLabel = new JLabel(
 			"<html><p>&bull; <b>Left-click</b> an unrevealed tile to reveal it.</p>" +
 			"<p>&bull; <b>Right-click</b> or <b>alt + left-click</b> an unrevealed tile to " +
 			"cycle through flagged, unknown, and empty states.</p>" +
@@ -377,7 +523,6 @@ public class Main implements ActionListener, MouseListener {
 			"its adjacent tiles.</p>"
 		);
 		controlsLabel.setOpaque(true);
-		controlsLabel.setFont(labelFont.deriveFont(16f));
 		controlsLabel.setPreferredSize(new Dimension(250, 150));
 		controlsLabel.setBorder(new EmptyBorder(10, 10, 10, 10));
 		controlsMenu.add(controlsLabel);
@@ -385,6 +530,10 @@ public class Main implements ActionListener, MouseListener {
 		// ADD MENUS
 		menuBar.add(gameMenu);
 		menuBar.add(themeMenu);
+		menuBar.add(zoomMenu);
+		menuBar.add(solverMenu);
+		menuBar.add(replaysMenu);
+		menuBar.add(statisticsMenu);
 		menuBar.add(controlsMenu);
 
 		frame.setJMenuBar(menuBar);
@@ -393,202 +542,470 @@ public class Main implements ActionListener, MouseListener {
 	public JMenu getMenu(String name) {
 		JMenu menu = new JMenu(name);
 		menu.setOpaque(true);
-		menu.setFont(menuFont.deriveFont(10.5f));
 		return menu;
 	}
 
 	public JMenuItem getMenuItem(String name) {
-		JMenuItem item = new JMenuItem(name);
+		return getMenuItem(new JMenuItem(name));
+	}
+
+	public JMenuItem getMenuItem(JMenuItem item) {
 		item.setOpaque(true);
-		item.setFont(menuFont.deriveFont(8.5f));
 		item.addActionListener(this);
 		return item;
 	}
 
-	public void setIcons(String iconSet) {
-		final int RESET_BUTTON_SIZE = 52; // 2x original reset button size
-		final int SCOREBOARD_NUMBERS_HEIGHT = 46; // 2x height of original scoreboard icons
-		String iconSetDir = "/icons/" + iconSet + "/";
-
-		tileIcon = getImageIcon(iconSetDir + "tile.png", TILE_SIZE, TILE_SIZE);
-		revealedTileIcon = getImageIcon(iconSetDir + "revealed_tile.png", TILE_SIZE, TILE_SIZE);
-		mineIcon = getImageIcon(iconSetDir + "mine.png", TILE_SIZE, TILE_SIZE);
-		flagIcon = getImageIcon(iconSetDir + "flag.png", TILE_SIZE, TILE_SIZE);
-		unknownIcon = getImageIcon(iconSetDir + "unknown.png", TILE_SIZE, TILE_SIZE);
-		mineSelectedIcon = getImageIcon(iconSetDir + "mine_selected.png", TILE_SIZE, TILE_SIZE);
-		incorrectGuessIcon = getImageIcon(iconSetDir + "incorrect_guess.png", TILE_SIZE, TILE_SIZE);
-
-		resetIcon = getImageIcon(iconSetDir + "reset/reset.png", RESET_BUTTON_SIZE,
-				RESET_BUTTON_SIZE);
-		resetDownIcon = getImageIcon(iconSetDir + "reset/down.png", RESET_BUTTON_SIZE,
-				RESET_BUTTON_SIZE);
-		resetTileDownIcon = getImageIcon(iconSetDir + "reset/tile_down.png", RESET_BUTTON_SIZE,
-				RESET_BUTTON_SIZE);
-		resetWinIcon = getImageIcon(iconSetDir + "reset/win.png", RESET_BUTTON_SIZE,
-				RESET_BUTTON_SIZE);
-		resetLoseIcon = getImageIcon(iconSetDir + "reset/lose.png", RESET_BUTTON_SIZE,
-				RESET_BUTTON_SIZE);
-
-		numberIcons = new ImageIcon[8];
-		for (int i = 0; i < numberIcons.length; i++) {
-			numberIcons[i] = getImageIcon(iconSetDir + "numbers/" + (i + 1) + ".png",
-					TILE_SIZE, TILE_SIZE);
+	// parses and registers a TrueType font, null if it can't be read
+	private Font loadFont(String path) {
+		try {
+			Font font = Font.createFont(Font.TRUETYPE_FONT, getClass().getResourceAsStream(path));
+			GraphicsEnvironment.getLocalGraphicsEnvironment().registerFont(font);
+			return font;
+		} catch (IOException | FontFormatException e) {
+			return null;
+		}
+	}
+
+	// fonts and sprites are handed over as they finish loading, each may change the layout
+	private void setMenuFont(Font menuFont) {
+		if (menuFont != null) {
+			for (int i = 0; i < menuBar.getMenuCount(); i++) {
+				JMenu menu = menuBar.getMenu(i);
+				menu.setFont(menuFont.deriveFont(MENU_FONT_SIZE));
+				for (Component item : menu.getMenuComponents()) {
+					if (!(item instanceof JMenuItem)) continue;
+					item.setFont(menuFont.deriveFont(MENU_ITEM_FONT_SIZE));
+				}
+			}
+		}
+		assetLoaded();
+	}
+
+	private void setLabelFont(Font labelFont) {
+		if (labelFont != null) controlsLabel.setFont(labelFont.deriveFont(LABEL_FONT_SIZE));
+		assetLoaded();
+	}
+
+	private void spritesLoaded() {
+		setIcons(theme.getIconSet()); // already in the atlas, unless the theme or zoom changed
+		updateIcons();
+		assetLoaded();
+	}
+
+	private void assetLoaded() {
+		assetsLoading--;
+		frame.pack();
+		frame.repaint();
+	}
+
+	// measures startup on every paint until the first one after the last asset is loaded
+	private void framePainted() {
+		final long now = System.nanoTime();
+		if (firstFrameTime == 0) firstFrameTime = now;
+		if (assetsLoading > 0) return;
+		startupMeasured = true;
+
+		if (REPORT_STARTUP) {
+			// the process start time is only known to the nearest clock tick
+			String sinceStart = ProcessHandle.current().info().startInstant().map(start ->
+					String.format(", %d ms after the JVM started", System.currentTimeMillis() -
+					start.toEpochMilli())).orElse("");
+			System.err.printf("first frame %.1f ms, loaded frame %.1f ms after main%s%n",
+					(firstFrameTime - launchTime) / 1e6, (now - launchTime) / 1e6, sinceStart);
 		}
+		if (EXIT_AFTER_STARTUP) System.exit(0);
+	}
 
-		scoreboardNumberIcons = new ImageIcon[11];
+	public void setIcons(String iconSet) {
+		final long start = System.nanoTime();
+		SpriteAtlas.Sprites sprites = spriteAtlas.get(iconSet, tileSize);
+
+		resetIcon = new ImageIcon(sprites.reset);
+		resetDownIcon = new ImageIcon(sprites.resetDown);
+		resetTileDownIcon = new ImageIcon(sprites.resetTileDown);
+		resetWinIcon = new ImageIcon(sprites.resetWin);
+		resetLoseIcon = new ImageIcon(sprites.resetLose);
+
+		scoreboardNumberIcons = new ImageIcon[sprites.scoreboardNumbers.length];
 		for (int i = 0; i < scoreboardNumberIcons.length; i++) {
-			//keep aspect ratio of scoreboard numbers since not square
-			scoreboardNumberIcons[i] = new ImageIcon(getClass().getResource(iconSetDir +
-					"scoreboard_numbers/" +
-					(i != scoreboardNumberIcons.length - 1 ? i : "negative") +
-					".png"));
-			scoreboardNumberIcons[i] = new ImageIcon(
-					scoreboardNumberIcons[i].getImage().getScaledInstance(
-				SCOREBOARD_NUMBERS_HEIGHT * scoreboardNumberIcons[i].getIconWidth() /
-						scoreboardNumberIcons[i].getIconHeight(),
-				SCOREBOARD_NUMBERS_HEIGHT,
-				Image.SCALE_SMOOTH
-			));
+			scoreboardNumberIcons[i] = new ImageIcon(sprites.scoreboardNumbers[i]);
+		}
+		// scoreboard labels still show the old icons
+		if (flagsDigits != null) {
+			Arrays.fill(flagsDigits, -1);
+			Arrays.fill(timeDigits, -1);
+		}
+
+		boardView.setSprites(sprites);
+		metrics.iconsSet(start, iconSet, tileSize);
+	}
+
+	// changes the tile size without restarting the game
+	public void setZoom(int tileSize) {
+		this.tileSize = tileSize;
+		boardView.setSprites(spriteAtlas.get(theme.getIconSet(), tileSize));
+		frame.pack();
+	}
+
+	// outlines a tile that is safe to reveal, or the least likely to be a mine if none is
+	public void showHint() {
+		if (!boardView.isEnabled() || pendingSolve != null) return;
+		// the first reveal is never a mine
+		if (!board.isMinesSet()) {
+			boardView.setHint(board.getRows() / 2, board.getColumns() / 2, true);
+			return;
 		}
+
+		Solver solver = new Solver(new Board(board), SOLVER_TIME_LIMIT_MS);
+		runSolver(solver::solve, result -> {
+			// the player may have moved while the solver worked
+			for (int i : result.safe) {
+				if (board.getState(i) != Board.HIDDEN) continue;
+				boardView.setHint(board.getRow(i), board.getColumn(i), true);
+				return;
+			}
+			if (solver.isTimedOut()) {
+				showNoAnswer();
+				return;
+			}
+			int guess = result.getBestGuess();
+			if (guess >= 0 && board.getState(guess) == Board.HIDDEN) {
+				boardView.setHint(board.getRow(guess), board.getColumn(guess), false);
+			}
+		});
 	}
 
-	public ImageIcon getImageIcon(String dir, int width, int height) {
-		ImageIcon imageIcon = new ImageIcon(getClass().getResource(dir));
-		imageIcon = new ImageIcon(imageIcon.getImage().getScaledInstance(width, height,
-				Image.SCALE_SMOOTH));
-		return imageIcon;
+	// reveals every tile the solver can prove safe until it has to guess, a round at a time,
+	// tiles the player has flagged or marked are left alone
+	public void autoSolve() {
+		if (!boardView.isEnabled() || !board.isMinesSet() || pendingSolve != null) return;
+		Solver solver = new Solver(new Board(board), SOLVER_TIME_LIMIT_MS);
+		runSolver(solver::findSafe, safe -> {
+			boolean progress = false;
+			for (int i : safe) {
+				if (!boardView.isEnabled()) return;
+				if (board.getState(i) != Board.HIDDEN) continue;
+				reveal(board.getRow(i), board.getColumn(i));
+				progress = true;
+			}
+			if (progress) autoSolve(); // the next round sees what these reveals opened
+			else if (solver.isTimedOut()) showNoAnswer();
+		});
+	}
+
+	// runs a solver on its copy of the board off the EDT with the solver items disabled, then
+	// hands the answer back to the EDT unless a new game was started meanwhile
+	private <T> void runSolver(Supplier<T> solve, Consumer<T> answer) {
+		CompletableFuture<T> future = CompletableFuture.supplyAsync(solve);
+		pendingSolve = future;
+		setSolverEnabled(false);
+		future.whenComplete((result, e) -> SwingUtilities.invokeLater(() -> {
+			if (pendingSolve != future) return;
+			pendingSolve = null;
+			setSolverEnabled(true);
+			if (result != null && boardView.isEnabled()) answer.accept(result);
+		}));
+	}
+
+	private void setSolverEnabled(boolean enabled) {
+		hintItem.setEnabled(enabled);
+		autoSolveItem.setEnabled(enabled);
+	}
+
+	private void showNoAnswer() {
+		JOptionPane.showMessageDialog(frame, "The solver found no answer in time.", "Solver",
+				JOptionPane.PLAIN_MESSAGE);
+	}
+
+	// selects the topology for new games, starting one straight away if a game is open
+	public void setTopology(Topology topology) {
+		if (topology == Topology.WRAPAROUND) wraparoundItem.setSelected(true);
+		else if (topology == Topology.HEXAGONAL) hexagonalItem.setSelected(true);
+		else squareItem.setSelected(true);
+		if (topology == this.topology) return;
+		this.topology = topology;
+		if (board != null) init(difficulty);
+	}
+
+	// saves the difficulty, topology, theme and any game in progress to resume on the next launch
+	public void saveGame() {
+		final boolean playing = board.isMinesSet() && !board.isExploded() && !board.isWin();
+		try {
+			SavedGame.write(DATA_DIRECTORY.resolve(SAVE_FILE), difficulty, topology,
+					theme.getIconSet(), playing ? board : null, clock.getElapsedMillis());
+		} catch (IOException ignored) {}
+	}
+
+	// continues a game saved by saveGame
+	public void resume(SavedGame saved) {
+		setTopology(saved.getTopology());
+		init(saved.getDifficulty());
+		if (saved.getBoard() == null) return;
+
+		board = saved.getBoard();
+		clock.start(saved.getElapsedMillis() * 1_000_000);
+		events.gameResumed(board, saved.getElapsedMillis());
+		updateTime();
+		events.counterChanged(GameEvents.FLAGS_COUNTER, board.getFlags());
+	}
+
+	// appends the current game to the replay archive if it has not been already, for the game
+	// still open when the window closes
+	public void finishRecording() {
+		if (recorder != null && board != null) recorder.finish(board);
+	}
+
+	public void showReplays() {
+		ReplayArchive archive = null;
+		try {
+			archive = new ReplayArchive(DATA_DIRECTORY.resolve(REPLAY_FILE));
+		} catch (IOException ignored) {}
+		if (archive == null || archive.size() == 0) {
+			JOptionPane.showMessageDialog(frame, "No games have been recorded yet.", "Replays",
+					JOptionPane.PLAIN_MESSAGE);
+			return;
+		}
+		new ReplayViewer(frame, archive, spriteAtlas.get(theme.getIconSet(), tileSize)).show();
+	}
+
+	// best times, win rate, streaks and a histogram of win times for each board size played
+	public void showStatistics() {
+		List<Statistics.Entry> entries = statistics == null ? Collections.emptyList() :
+				statistics.getEntries();
+		if (entries.isEmpty()) {
+			JOptionPane.showMessageDialog(frame, "No games have been played yet.", "Statistics",
+					JOptionPane.PLAIN_MESSAGE);
+			return;
+		}
+
+		JTabbedPane tabs = new JTabbedPane();
+		for (Statistics.Entry entry : entries) {
+			StringBuilder text = new StringBuilder("<html><table>");
+			text.append("<tr><td>Played</td><td>").append(entry.played).append("</td></tr>");
+			text.append("<tr><td>Won</td><td>").append(entry.won).append(" (")
+					.append(entry.won * 100 / entry.played).append("%)</td></tr>");
+			text.append("<tr><td>Streak</td><td>").append(entry.streak).append("</td></tr>");
+			text.append("<tr><td>Best streak</td><td>").append(entry.bestStreak)
+					.append("</td></tr>");
+			for (int i = 0; i < entry.bestTimes.length; i++) {
+				text.append("<tr><td>").append(i == 0 ? "Best times" : "").append("</td><td>")
+						.append(String.format("%.3f s", entry.bestTimes[i] / 1000.0))
+						.append("</td></tr>");
+			}
+
+			// win times, from the fastest bucket used to the slowest
+			int first = 0, last = entry.histogram.length - 1, most = 0;
+			while (first < last && entry.histogram[first] == 0) first++;
+			while (last > first && entry.histogram[last] == 0) last--;
+			for (int count : entry.histogram) most = Math.max(most, count);
+			for (int i = first; most > 0 && i <= last; i++) {
+				String range = i == 0 ? "under 1 s" : i == entry.histogram.length - 1 ?
+						(1 << (i - 1)) + "+ s" : (1 << (i - 1)) + "-" + ((1 << i) - 1) + " s";
+				text.append("<tr><td>").append(range).append("</td><td>")
+						.append("#".repeat((entry.histogram[i] * 20 + most - 1) / most))
+						.append(" ").append(entry.histogram[i]).append("</td></tr>");
+			}
+			text.append("</table></html>");
+
+			JLabel label = new JLabel(text.toString());
+			label.setVerticalAlignment(SwingConstants.TOP);
+			label.setBorder(new EmptyBorder(10, 10, 10, 10));
+			tabs.addTab(getName(new Difficulty(entry.rows, entry.columns, entry.mines)), label);
+		}
+		JOptionPane.showMessageDialog(frame, tabs, "Best Times", JOptionPane.PLAIN_MESSAGE);
+	}
+
+	private String getName(Difficulty difficulty) {
+		for (Difficulty preset : new Difficulty[] {BEGINNER, INTERMEDIATE, EXPERT}) {
+			if (preset.getRows() == difficulty.getRows() &&
+					preset.getColumns() == difficulty.getColumns() &&
+					preset.getMines() == difficulty.getMines()) {
+				return preset == BEGINNER ? "Beginner" : preset == INTERMEDIATE ? "Intermediate" :
+						"Expert";
+			}
+		}
+		return difficulty.getRows() + "x" + difficulty.getColumns() + ", " +
+				difficulty.getMines() + " mines";
+	}
+
+	// asks for the rows, columns, and mines of a custom board, null if cancelled
+	public Difficulty showCustomDialog() {
+		final int MAX_SIZE = 3000;
+		JSpinner rowsSpinner = new JSpinner(new SpinnerNumberModel(difficulty.getRows(), 1,
+				MAX_SIZE, 1));
+		JSpinner columnsSpinner = new JSpinner(new SpinnerNumberModel(difficulty.getColumns(), 1,
+				MAX_SIZE, 1));
+		JSpinner minesSpinner = new JSpinner(new SpinnerNumberModel(difficulty.getMines(), 0,
+				MAX_SIZE * MAX_SIZE - 1, 1));
+
+		JPanel panel = new JPanel(new GridLayout(3, 2, 5, 5));
+		panel.add(new JLabel("Rows"));
+		panel.add(rowsSpinner);
+		panel.add(new JLabel("Columns"));
+		panel.add(columnsSpinner);
+		panel.add(new JLabel("Mines"));
+		panel.add(minesSpinner);
+
+		if (JOptionPane.showConfirmDialog(frame, panel, "Custom", JOptionPane.OK_CANCEL_OPTION,
+				JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) return null;
+
+		int rows = (Integer)rowsSpinner.getValue(), columns = (Integer)columnsSpinner.getValue();
+		// at least one tile must be free of mines for the first reveal
+		int mines = Math.min((Integer)minesSpinner.getValue(), rows * columns - 1);
+		return new Difficulty(rows, columns, mines);
 	}
 
 	@Override
 	public void actionPerformed(ActionEvent e) {
 		Object src = e.getSource();
-		if (src == beginnerItem) init(BEGINNER);
+		if (src == clockTimer) updateTime();
+		else if (src == beginnerItem) init(BEGINNER);
 		else if (src == intermediateItem) init(INTERMEDIATE);
 		else if (src == expertItem) init(EXPERT);
-		else if (src == defaultItem) {
-			loadTheme(theme = DEFAULT);
-			init(difficulty);
-		} else if (src == monochromeItem) {
-			loadTheme(theme = MONOCHROME);
-			init(difficulty);
-		} else if (src == darkItem) {
-			loadTheme(theme = DARK);
-			init(difficulty);
+		else if (src == customItem) {
+			Difficulty custom = showCustomDialog();
+			if (custom != null) init(custom);
+		}
+		else if (src == defaultItem) setTheme(DEFAULT);
+		else if (src == monochromeItem) setTheme(MONOCHROME);
+		else if (src == darkItem) setTheme(DARK);
+		else if (src == squareItem) setTopology(Topology.SQUARE);
+		else if (src == wraparoundItem) setTopology(Topology.WRAPAROUND);
+		else if (src == hexagonalItem) setTopology(Topology.HEXAGONAL);
+		else if (src == noGuessItem) {
+			// applies from the next first click, boards start generating straight away
+			if (noGuessPool == null) noGuessPool = new NoGuessPool(NO_GUESS_POOL_SIZE);
+			if (noGuessItem.isSelected()) noGuessPool.prepare(difficulty);
+		}
+		else if (src == hintItem) showHint();
+		else if (src == autoSolveItem) autoSolve();
+		else if (src == replaysItem) showReplays();
+		else if (src == statisticsItem) showStatistics();
+		else if (src == debugOverlayItem) debugOverlay.setVisible(debugOverlayItem.isSelected());
+		else {
+			for (int i = 0; i < zoomItems.length; i++) {
+				if (src == zoomItems[i]) setZoom(ZOOM_TILE_SIZES[i]);
+			}
 		}
 	}
 
 	@Override
-	public void mouseClicked(MouseEvent e) {}
-
-	@Override
-	public void mousePressed(MouseEvent e) {
-		JComponent src = (JComponent)e.getSource();
-		if (!src.isEnabled()) return;
-
-		if (src instanceof JToggleButton) {
-			JToggleButton button = (JToggleButton)e.getSource();
-			int row = button.getY() / button.getHeight();
-			int col = button.getX() / button.getWidth();
-
-			if (SwingUtilities.isRightMouseButton(e) ||
-					(e.isAltDown() && SwingUtilities.isLeftMouseButton(e))) {
-				// cycle through flag, unknown, and empty tile
-				if (gameGrid[row][col].getIcon() == tileIcon) { // change to flag
-					gameGrid[row][col].setIcon(flagIcon);
-					gameGrid[row][col].setPressedIcon(flagIcon);
-					updateScoreboard(--flags, "flags");
-				} else if (gameGrid[row][col].getIcon() == flagIcon) { // change to unknown
-					gameGrid[row][col].setIcon(unknownIcon);
-					gameGrid[row][col].setPressedIcon(unknownIcon);
-					updateScoreboard(++flags, "flags");
-				} else if (gameGrid[row][col].getIcon() == unknownIcon) { // change to empty
-					gameGrid[row][col].setIcon(tileIcon);
-					gameGrid[row][col].setPressedIcon(tileIcon);
-				}
-			} else if (!e.isControlDown() && SwingUtilities.isLeftMouseButton(e)) {
-				// change reset button icon when tile is held down
-				if (gameGrid[row][col].getIcon() == tileIcon) {
-					resetButton.setIcon(resetTileDownIcon);
-					resetButton.setBorder(null);
-				}
-			} else if (SwingUtilities.isMiddleMouseButton(e) ||
-					(e.isControlDown() && SwingUtilities.isLeftMouseButton(e))) {
-				// reveal adjacent tiles
-				for (int r = row - 1; r <= row + 1; r++) {
-					for (int c = col - 1; c <= col + 1; c++) {
-						if (r < 0 || c < 0 || r >= gameGrid.length || c >= gameGrid[0].length) {
-							continue;
-						}
-						if ((Boolean)gameGrid[r][c].getClientProperty("enabled") &&
-								gameGrid[r][c].getIcon() == tileIcon) {
-							gameGrid[r][c].setIcon(revealedTileIcon);
-						}
-					}
+	public void reveal(int row, int col) {
+		if (board.getState(row, col) != Board.HIDDEN) return;
+		final long input = Metrics.getInputTime();
+		// start timer on first reveal
+		if (!board.isMinesSet()) {
+			// mines are placed from a board known to be solvable from this tile
+			if (noGuessItem.isSelected() && NoGuessPool.isSupported(difficulty) &&
+					topology == Topology.SQUARE) {
+				if (pendingSeed != null) return; // still waiting for the first reveal's board
+				CompletableFuture<OptionalLong> seed = noGuessPool.take(difficulty, row, col);
+				if (!seed.isDone()) {
+					waitForSeed(seed, row, col);
+					return;
 				}
+				startNoGuessGame(row, col, seed.join());
+			} else {
+				startGame(row, col, OptionalLong.empty());
 			}
 		}
+		// expand tiles
+		final long start = System.nanoTime();
+		int[] cells = board.reveal(row, col);
+		metrics.moveMade("reveal", input, start, cells.length);
+		events.cellsRevealed(Replay.REVEAL, board.index(row, col), cells);
+		// end game if mine is clicked
+		if (board.isExploded()) endGame(false);
+		else if (board.isWin()) endGame(true); // check win
+	}
+
+	// places the mines for the first reveal, from a no guessing board's seed if there is one,
+	// and starts the clock
+	private void startGame(int row, int col, OptionalLong noGuessSeed) {
+		final long placing = System.nanoTime();
+		if (noGuessSeed.isPresent()) {
+			board.setSeed(noGuessSeed.getAsLong());
+			NoGuessPool.placeMines(board, row, col);
+		} else {
+			board.setMines(row, col);
+		}
+		metrics.minesPlaced(placing, board.getRows() * board.getColumns(), board.getMines());
+		clock.start();
+		events.gameStarted();
+		updateTime();
+	}
+
+	// a game promised to need no guesses says so when it falls back to an ordinary board
+	private void startNoGuessGame(int row, int col, OptionalLong seed) {
+		if (!seed.isPresent()) frame.setTitle(GUESSING_TITLE);
+		startGame(row, col, seed);
+	}
+
+	// the pool had no board ready for this tile, so one is generated on its workers while the
+	// board shows a busy cursor, then the reveal is made
+	private void waitForSeed(CompletableFuture<OptionalLong> seed, int row, int col) {
+		pendingSeed = seed;
+		boardView.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+		seed.whenComplete((found, e) -> SwingUtilities.invokeLater(() -> {
+			if (pendingSeed != seed) return; // a new game was started while waiting
+			pendingSeed = null;
+			boardView.setCursor(null);
+			startNoGuessGame(row, col, found != null ? found : OptionalLong.empty());
+			reveal(row, col);
+		}));
+	}
+
+	@Override
+	public void chord(int row, int col) {
+		// reveal adjacent tiles if enough flags surround the tile
+		final long input = Metrics.getInputTime();
+		final long start = System.nanoTime();
+		int[] cells = board.chord(row, col);
+		if (cells.length == 0) return;
+		metrics.moveMade("chord", input, start, cells.length);
+		events.cellsRevealed(Replay.CHORD, board.index(row, col), cells);
+		if (board.isExploded()) endGame(false);
+		else if (board.isWin()) endGame(true);
+	}
+
+	@Override
+	public void flag(int row, int col) {
+		// cycle through flag, unknown, and empty tile
+		byte state = board.getState(row, col);
+		if (state == Board.REVEALED) return;
+		final long input = Metrics.getInputTime();
+		final long start = System.nanoTime();
+		final byte flag = board.cycleFlag(row, col);
+		metrics.moveMade("flag", input, start, 1);
+		events.flagChanged(board.index(row, col), flag);
+		// unknown cells aren't flags, so only cycling to or from a flag changes the count
+		if (state != Board.UNKNOWN) {
+			events.counterChanged(GameEvents.FLAGS_COUNTER, board.getFlags());
+		}
 	}
 
+	@Override
+	public void pressChanged(int row, int col, boolean chord) {
+		// change reset button icon while a tile is held down
+		boolean tileDown = !chord && row >= 0 && board.getState(row, col) == Board.HIDDEN;
+		resetButton.setIcon(tileDown ? resetTileDownIcon : resetIcon);
+		resetButton.setBorder(null);
+	}
+
+	@Override
+	public void mouseClicked(MouseEvent e) {}
+
+	@Override
+	public void mousePressed(MouseEvent e) {}
+
 	@Override
 	public void mouseReleased(MouseEvent e) {
-		JComponent src = (JComponent)e.getSource();
-		if (!src.isEnabled()) return;
+		if (!resetButton.isEnabled()) return;
 
-		if (src == resetButton) {
-			if (SwingUtilities.isLeftMouseButton(e)) {
-				resetButton.setIcon(resetIcon);
-				resetButton.setBorder(null);
-				init(difficulty);
-			}
-		} else if (src instanceof JToggleButton) {
-			JToggleButton button = (JToggleButton)e.getSource();
-			int row = button.getY() / button.getHeight();
-			int col = button.getX() / button.getWidth();
-
-			if (!e.isControlDown() && !e.isAltDown() && SwingUtilities.isLeftMouseButton(e)) {
-				if (gameGrid[row][col].getIcon() != tileIcon) return;
-				// end game if mine is clicked
-				if ((Integer)gameGrid[row][col].getClientProperty("mines") == -1) {
-					gameGrid[row][col].setIcon(mineSelectedIcon);
-					endGame(false);
-					return;
-				}
-				// set reset button icon
-				resetButton.setIcon(resetIcon);
-				resetButton.setBorder(null);
-				// check first reveal
-				if (firstReveal) {
-					setMines(row, col); // set mines
-					// start timer
-					timer.schedule(new TimerTask() {
-						@Override
-						public void run() {
-							updateScoreboard(++time, "time");
-						}
-					}, 0, 1000);
-					firstReveal = false;
-				}
-				// expand tiles
-				expand(row, col);
-				if (isWin()) endGame(true); // check win
-			} else if (SwingUtilities.isMiddleMouseButton(e) ||
-					(e.isControlDown() && SwingUtilities.isLeftMouseButton(e))) {
-				// unreveal adjacent tiles
-				for (int r = row - 1; r <= row + 1; r++) {
-					for (int c = col - 1; c <= col + 1; c++) {
-						if (r < 0 || c < 0 || r >= gameGrid.length || c >= gameGrid[0].length) {
-							continue;
-						}
-						if ((Boolean)gameGrid[r][c].getClientProperty("enabled") &&
-								gameGrid[r][c].getIcon() == revealedTileIcon) {
-							gameGrid[r][c].setIcon(tileIcon);
-						}
-					}
-				}
-			}
-			if (gameGrid[row][col].getIcon() == tileIcon) {
-				gameGrid[row][col].setPressedIcon(revealedTileIcon);
-			}
+		if (SwingUtilities.isLeftMouseButton(e)) {
+			resetButton.setIcon(resetIcon);
+			resetButton.setBorder(null);
+			init(difficulty);
 		}
 	}
 
@@ -599,6 +1016,8 @@ public class Main implements ActionListener, MouseListener {
 	public void mouseExited(MouseEvent e) {}
 
 	public static void main(String[] args) {
-		new Main();
+		final long launchTime = System.nanoTime();
+		// swing components are only touched on the EDT
+		SwingUtilities.invokeLater(() -> new Main(launchTime));
 	}
 }
\ No newline at end of file
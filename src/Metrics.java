@@ -0,0 +1,313 @@
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.awt.EventQueue;
+import java.lang.management.ManagementFactory;
+
+// where the time of a click goes: every measurement is a JFR event (recorded with
+// -XX:StartFlightRecording), adds to a timer read by the debug overlay, and is readable over JMX
+// as minesweeper:type=Metrics
+public class Metrics implements MetricsMXBean {
+	public static final String OBJECT_NAME = "minesweeper:type=Metrics";
+
+	// count, last, average and maximum of one measurement
+	public static class Timer {
+		private long count, last, total, max; // nanoseconds
+
+		private synchronized void add(long nanos) {
+			count++;
+			last = nanos;
+			total += nanos;
+			if (nanos > max) max = nanos;
+		}
+
+		private synchronized void clear() {
+			count = last = total = max = 0;
+		}
+
+		public synchronized long getCount() {
+			return count;
+		}
+		public synchronized double getLastMillis() {
+			return last / 1e6;
+		}
+		public synchronized double getAverageMillis() {
+			return count == 0 ? 0 : total / 1e6 / count;
+		}
+		public synchronized double getMaxMillis() {
+			return max / 1e6;
+		}
+	}
+
+	// JFR EVENTS
+	// the events are timed by the caller, so their own durations are 0
+
+	@Name("minesweeper.InputLatency")
+	@Label("Input to Paint")
+	@Category("Minesweeper")
+	@StackTrace(false)
+	public static class InputLatencyEvent extends Event {
+		@Label("Move")
+		String move;
+		@Label("Latency")
+		@Timespan
+		long latency;
+	}
+
+	@Name("minesweeper.Move")
+	@Label("Move")
+	@Category("Minesweeper")
+	@StackTrace(false)
+	public static class MoveEvent extends Event {
+		@Label("Move")
+		String move;
+		@Label("Cells Changed")
+		int cells;
+		@Label("Elapsed")
+		@Timespan
+		long elapsed;
+	}
+
+	@Name("minesweeper.MinePlacement")
+	@Label("Mine Placement")
+	@Category("Minesweeper")
+	@StackTrace(false)
+	public static class MinePlacementEvent extends Event {
+		@Label("Cells")
+		int cells;
+		@Label("Mines")
+		int mines;
+		@Label("Elapsed")
+		@Timespan
+		long elapsed;
+	}
+
+	@Name("minesweeper.Init")
+	@Label("New Game")
+	@Category("Minesweeper")
+	@StackTrace(false)
+	public static class InitEvent extends Event {
+		@Label("Cells")
+		int cells;
+		@Label("Elapsed")
+		@Timespan
+		long elapsed;
+	}
+
+	@Name("minesweeper.Icons")
+	@Label("Icons")
+	@Category("Minesweeper")
+	@StackTrace(false)
+	public static class IconsEvent extends Event {
+		@Label("Icon Set")
+		String iconSet;
+		@Label("Tile Size")
+		int tileSize;
+		@Label("Elapsed")
+		@Timespan
+		long elapsed;
+	}
+
+	@Name("minesweeper.Paint")
+	@Label("Board Paint")
+	@Category("Minesweeper")
+	@StackTrace(false)
+	public static class PaintEvent extends Event {
+		@Label("Tiles")
+		int tiles;
+		@Label("Elapsed")
+		@Timespan
+		long elapsed;
+	}
+
+	@Name("minesweeper.EdtStall")
+	@Label("EDT Stall")
+	@Category("Minesweeper")
+	@StackTrace(false)
+	public static class EdtStallEvent extends Event {
+		@Label("Event")
+		String event;
+		@Label("EDT Stack")
+		String stack; // taken while the EDT was stuck, not when the event is committed
+		@Label("Elapsed")
+		@Timespan
+		long elapsed;
+	}
+
+	private final Timer inputLatency = new Timer(), moves = new Timer(),
+			minePlacement = new Timer(), init = new Timer(), icons = new Timer(),
+			paints = new Timer(), stalls = new Timer();
+	private volatile int lastMoveCells, largestMoveCells;
+	private volatile String lastStallStack = "";
+
+	// the move waiting for the board to be painted
+	private String pendingMove;
+	private long pendingInput;
+
+	// registers with the platform MBean server, measurements are still kept if it can't be
+	public Metrics() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+					new ObjectName(OBJECT_NAME));
+		} catch (JMException ignored) {}
+	}
+
+	// nanoTime of the input event being dispatched, from its millisecond timestamp, so the time
+	// it waited in the event queue is counted
+	public static long getInputTime() {
+		final long now = System.nanoTime();
+		final long queued = System.currentTimeMillis() - EventQueue.getMostRecentEventTime();
+		return queued > 0 && queued < 60_000 ? now - queued * 1_000_000 : now;
+	}
+
+	// a move that changed cells, from the input that made it, which is finished once the board
+	// is next painted
+	public void moveMade(String move, long input, long start, int cells) {
+		final long elapsed = System.nanoTime() - start;
+		moves.add(elapsed);
+		lastMoveCells = cells;
+		if (cells > largestMoveCells) largestMoveCells = cells;
+		pendingMove = move;
+		pendingInput = input;
+
+		MoveEvent event = new MoveEvent();
+		if (event.isEnabled()) {
+			event.move = move;
+			event.cells = cells;
+			event.elapsed = elapsed;
+			event.commit();
+		}
+	}
+
+	public void minesPlaced(long start, int cells, int mines) {
+		final long elapsed = System.nanoTime() - start;
+		minePlacement.add(elapsed);
+
+		MinePlacementEvent event = new MinePlacementEvent();
+		if (event.isEnabled()) {
+			event.cells = cells;
+			event.mines = mines;
+			event.elapsed = elapsed;
+			event.commit();
+		}
+	}
+
+	public void initialized(long start, int cells) {
+		final long elapsed = System.nanoTime() - start;
+		init.add(elapsed);
+
+		InitEvent event = new InitEvent();
+		if (event.isEnabled()) {
+			event.cells = cells;
+			event.elapsed = elapsed;
+			event.commit();
+		}
+	}
+
+	public void iconsSet(long start, String iconSet, int tileSize) {
+		final long elapsed = System.nanoTime() - start;
+		icons.add(elapsed);
+
+		IconsEvent event = new IconsEvent();
+		if (event.isEnabled()) {
+			event.iconSet = iconSet;
+			event.tileSize = tileSize;
+			event.elapsed = elapsed;
+			event.commit();
+		}
+	}
+
+	// the board was painted, finishing the move waiting for it
+	public void painted(long start, int tiles) {
+		final long now = System.nanoTime();
+		paints.add(now - start);
+
+		PaintEvent event = new PaintEvent();
+		if (event.isEnabled()) {
+			event.tiles = tiles;
+			event.elapsed = now - start;
+			event.commit();
+		}
+
+		if (pendingMove == null) return;
+		inputLatency.add(now - pendingInput);
+		InputLatencyEvent latencyEvent = new InputLatencyEvent();
+		if (latencyEvent.isEnabled()) {
+			latencyEvent.move = pendingMove;
+			latencyEvent.latency = now - pendingInput;
+			latencyEvent.commit();
+		}
+		pendingMove = null;
+	}
+
+	// called by EdtWatchdog once the stalled event has been dispatched
+	public void stalled(long elapsed, String event, String stack) {
+		stalls.add(elapsed);
+		if (stack != null) lastStallStack = stack;
+
+		EdtStallEvent stallEvent = new EdtStallEvent();
+		if (stallEvent.isEnabled()) {
+			stallEvent.event = event;
+			stallEvent.stack = stack;
+			stallEvent.elapsed = elapsed;
+			stallEvent.commit();
+		}
+	}
+
+	// MBEAN ATTRIBUTES
+
+	@Override
+	public Timer getInputLatency() {
+		return inputLatency;
+	}
+	@Override
+	public Timer getMoves() {
+		return moves;
+	}
+	@Override
+	public Timer getMinePlacement() {
+		return minePlacement;
+	}
+	@Override
+	public Timer getInit() {
+		return init;
+	}
+	@Override
+	public Timer getIcons() {
+		return icons;
+	}
+	@Override
+	public Timer getPaints() {
+		return paints;
+	}
+	@Override
+	public Timer getStalls() {
+		return stalls;
+	}
+	@Override
+	public int getLastMoveCells() {
+		return lastMoveCells;
+	}
+	@Override
+	public int getLargestMoveCells() {
+		return largestMoveCells;
+	}
+	@Override
+	public String getLastStallStack() {
+		return lastStallStack;
+	}
+
+	@Override
+	public void reset() {
+		for (Timer timer : new Timer[] {inputLatency, moves, minePlacement, init, icons, paints,
+				stalls}) timer.clear();
+		lastMoveCells = largestMoveCells = 0;
+		lastStallStack = "";
+	}
+}
@@ -0,0 +1,19 @@
+// the measurements of Metrics as JMX attributes, readable with jconsole or jcmd while the game runs
+public interface MetricsMXBean {
+	// from the click to the end of the paint showing its result
+	Metrics.Timer getInputLatency();
+	// reveals, chords and flags, without painting
+	Metrics.Timer getMoves();
+	Metrics.Timer getMinePlacement();
+	Metrics.Timer getInit();
+	Metrics.Timer getIcons();
+	Metrics.Timer getPaints();
+	// events that kept the EDT busy for longer than a frame
+	Metrics.Timer getStalls();
+
+	int getLastMoveCells();
+	int getLargestMoveCells();
+	String getLastStallStack();
+
+	void reset();
+}
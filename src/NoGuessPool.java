@@ -0,0 +1,194 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// keeps seeds of boards that can be solved without guessing, generated in the background
+public class NoGuessPool {
+	// first clicks are grouped into aligned blocks of this many rows and columns
+	private static final int BLOCK_SIZE = 3;
+	// a block and the ring around it are kept free of mines
+	private static final int FREE_SIZE = BLOCK_SIZE + 2;
+	// larger boards take too long to check, so they are generated normally
+	private static final int MAX_CELLS = 100 * 100;
+	// denser boards almost never open without a guess (1 in 300 on 16x30 at 25%)
+	private static final int MAX_DENSITY_PERCENT = 25;
+	// attempts made by a worker, or when a game needs a board the pool does not have yet
+	private static final int MAX_ATTEMPTS = 2000;
+	// rounds of attempts in a row that find nothing before a pool stops generating
+	private static final int MAX_FAILED_ROUNDS = 8;
+
+	private final int capacity; // boards kept for each block
+	private final ExecutorService workers;
+	private final Map<String, Pool> pools = new HashMap<>();
+
+	// ready seeds for one difficulty, one queue per block of first clicks
+	private class Pool {
+		private final Difficulty difficulty;
+		private final int blockColumns;
+		private final List<BlockingQueue<Long>> blocks;
+		private final AtomicInteger nextBlock = new AtomicInteger();
+		private final AtomicInteger running = new AtomicInteger(); // workers filling the pool
+		private final AtomicInteger failedRounds = new AtomicInteger();
+		// set after too many failed rounds, games then get ordinary boards straight away
+		private volatile boolean exhausted;
+
+		private Pool(Difficulty difficulty) {
+			this.difficulty = difficulty;
+			blockColumns = (difficulty.getColumns() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+			final int blockRows = (difficulty.getRows() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+			blocks = new ArrayList<>(blockRows * blockColumns);
+			for (int i = 0; i < blockRows * blockColumns; i++) {
+				blocks.add(new ArrayBlockingQueue<>(capacity));
+			}
+		}
+
+		// block with room for another board, -1 if every block is full
+		private int getEmptyBlock() {
+			for (int i = 0; i < blocks.size(); i++) {
+				final int block = Math.floorMod(nextBlock.getAndIncrement(), blocks.size());
+				if (blocks.get(block).remainingCapacity() > 0) return block;
+			}
+			return -1;
+		}
+
+		// starts a worker on every core that is not already filling this pool
+		private void fill() {
+			final int cores = Runtime.getRuntime().availableProcessors();
+			while (!exhausted) {
+				final int count = running.get();
+				if (count >= cores) return;
+				if (running.compareAndSet(count, count + 1)) workers.execute(this::work);
+			}
+		}
+
+		// a worker stops after a round of attempts finds nothing, so it only tries again when
+		// the next game fills the pool
+		private void work() {
+			try {
+				Board board = new Board(difficulty, 0);
+				int block;
+				while ((block = getEmptyBlock()) >= 0 && !Thread.currentThread().isInterrupted()) {
+					OptionalLong seed = generate(board, blockColumns, block, MAX_ATTEMPTS);
+					if (!seed.isPresent()) {
+						if (failedRounds.incrementAndGet() >= MAX_FAILED_ROUNDS) exhausted = true;
+						return;
+					}
+					failedRounds.set(0);
+					blocks.get(block).offer(seed.getAsLong());
+				}
+			} finally {
+				running.decrementAndGet();
+			}
+		}
+	}
+
+	public NoGuessPool(int capacity) {
+		this.capacity = capacity;
+		// low priority daemon threads so generation never holds up the game or the exit
+		workers = Executors.newCachedThreadPool(r -> {
+			Thread thread = new Thread(r, "no-guess generator");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+	}
+
+	// boards too small to leave the first click's block free, too large to check or too
+	// dense to open without guessing are generated normally
+	public static boolean isSupported(Difficulty difficulty) {
+		final int cells = difficulty.getRows() * difficulty.getColumns();
+		return cells <= MAX_CELLS && cells - difficulty.getMines() >= FREE_SIZE * FREE_SIZE &&
+				difficulty.getMines() * 100 <= cells * MAX_DENSITY_PERCENT;
+	}
+
+	// starts filling the pool for a difficulty in the background
+	public synchronized void prepare(Difficulty difficulty) {
+		if (isSupported(difficulty)) getPool(difficulty).fill();
+	}
+
+	// seed of a board with no guesses for a first click, placed with placeMines. Completed
+	// already if the pool has one ready, otherwise generated on a worker, empty if no board is
+	// found within the attempts or the pool has stopped generating
+	public CompletableFuture<OptionalLong> take(Difficulty difficulty, int row, int col) {
+		Pool pool;
+		synchronized (this) {
+			pool = getPool(difficulty);
+		}
+		final int block = getBlock(pool.blockColumns, row, col);
+		Long seed = pool.blocks.get(block).poll();
+		pool.fill();
+		if (seed != null) return CompletableFuture.completedFuture(OptionalLong.of(seed));
+		if (pool.exhausted) return CompletableFuture.completedFuture(OptionalLong.empty());
+		return CompletableFuture.supplyAsync(() -> generate(new Board(difficulty, 0),
+				pool.blockColumns, block, MAX_ATTEMPTS), workers);
+	}
+
+	private Pool getPool(Difficulty difficulty) {
+		String key = difficulty.getRows() + "x" + difficulty.getColumns() + "/" +
+				difficulty.getMines();
+		Pool pool = pools.get(key);
+		if (pool == null) pools.put(key, pool = new Pool(difficulty));
+		return pool;
+	}
+
+	// seed of a board with no guesses for a first click, without using the pool,
+	// empty if none is found within the attempts
+	public static OptionalLong generate(Board board, int row, int col) {
+		final int blockColumns = (board.getColumns() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		return generate(board, blockColumns, getBlock(blockColumns, row, col), MAX_ATTEMPTS);
+	}
+
+	private static int getBlock(int blockColumns, int row, int col) {
+		return row / BLOCK_SIZE * blockColumns + col / BLOCK_SIZE;
+	}
+
+	// places the mines of a seed from the pool, keeping the first click's block free
+	public static void placeMines(Board board, int row, int col) {
+		final int firstRow = row / BLOCK_SIZE * BLOCK_SIZE - 1;
+		final int firstCol = col / BLOCK_SIZE * BLOCK_SIZE - 1;
+		board.setMines(firstRow, firstCol, firstRow + FREE_SIZE - 1, firstCol + FREE_SIZE - 1);
+	}
+
+	// tries seeds until one can be solved from the block without guessing,
+	// empty if none can within the attempts or the thread is interrupted
+	private static OptionalLong generate(Board board, int blockColumns, int block,
+			int attempts) {
+		// every cell of the block has no adjacent mines, so any of them opens the same area
+		final int row = block / blockColumns * BLOCK_SIZE;
+		final int col = block % blockColumns * BLOCK_SIZE;
+		for (int attempt = 0; attempt < attempts; attempt++) {
+			final long seed = ThreadLocalRandom.current().nextLong();
+			board.reset(seed);
+			placeMines(board, row, col);
+			if (isSolvable(board, row, col)) return OptionalLong.of(seed);
+			if (Thread.currentThread().isInterrupted()) break;
+		}
+		return OptionalLong.empty();
+	}
+
+	// plays the board from the first click revealing only cells the solver proves safe
+	public static boolean isSolvable(Board board, int row, int col) {
+		board.reveal(row, col);
+		// generation already runs on every core, so the solver stays on this thread
+		Solver solver = new Solver(board, null);
+		while (!board.isWin()) {
+			int[] safe = solver.findSafe();
+			if (safe.length == 0) return false;
+			for (int i : safe) board.reveal(board.getRow(i), board.getColumn(i));
+		}
+		return true;
+	}
+
+	public void shutdown() {
+		workers.shutdownNow();
+	}
+}
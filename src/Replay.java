@@ -0,0 +1,133 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// one recorded game: the layout and every move with the milliseconds since the previous one
+//
+// archive: "MSRP", version byte, then one record per game
+// record: varint length of the rest, long start time (epoch ms), long seed,
+//         varints rows, columns, mines, free area (first row, first column, last row,
+//         last column, each + 1 so they are never negative), then events until the end
+// event: varint cell index << 2 | move, varint delta time in ms
+public class Replay {
+	public static final byte[] MAGIC = {'M', 'S', 'R', 'P'};
+	public static final byte VERSION = 1;
+
+	// moves
+	public static final int REVEAL = 0;
+	public static final int FLAG = 1;
+	public static final int CHORD = 2;
+
+	private final long startTime, seed;
+	private final int rows, columns, mines;
+	private final int[] freeArea;
+	private final int[] moves, cells;
+	private final long[] times; // ms since the game started
+
+	private Replay(long startTime, long seed, int rows, int columns, int mines, int[] freeArea,
+			int[] moves, int[] cells, long[] times) {
+		this.startTime = startTime;
+		this.seed = seed;
+		this.rows = rows;
+		this.columns = columns;
+		this.mines = mines;
+		this.freeArea = freeArea;
+		this.moves = moves;
+		this.cells = cells;
+		this.times = times;
+	}
+
+	// reads one record body, the buffer's limit is the end of the record
+	public static Replay read(ByteBuffer buffer) {
+		final long startTime = buffer.getLong(), seed = buffer.getLong();
+		final int rows = getVarint(buffer), columns = getVarint(buffer), mines = getVarint(buffer);
+		int[] freeArea = new int[4];
+		for (int i = 0; i < freeArea.length; i++) freeArea[i] = getVarint(buffer) - 1;
+
+		// events are at least 2 bytes, so this is enough room for all of them
+		final int capacity = buffer.remaining() / 2;
+		int[] moves = new int[capacity], cells = new int[capacity];
+		long[] times = new long[capacity];
+		int count = 0;
+		long time = 0;
+		while (buffer.hasRemaining()) {
+			final long event = getVarlong(buffer);
+			time += getVarlong(buffer);
+			moves[count] = (int)(event & 3);
+			cells[count] = (int)(event >>> 2);
+			times[count++] = time;
+		}
+		return new Replay(startTime, seed, rows, columns, mines, freeArea, Arrays.copyOf(moves,
+				count), Arrays.copyOf(cells, count), Arrays.copyOf(times, count));
+	}
+
+	// a board with the recorded layout and the first moves applied
+	public Board getBoard(int moveCount) {
+		Board board = new Board(rows, columns, mines, seed);
+		board.setMines(freeArea[0], freeArea[1], freeArea[2], freeArea[3]);
+		for (int i = 0; i < moveCount; i++) apply(board, i);
+		return board;
+	}
+
+	// applies a move to a board holding all the moves before it, returns the changed cells
+	public int[] apply(Board board, int move) {
+		final int row = board.getRow(cells[move]), col = board.getColumn(cells[move]);
+		switch (moves[move]) {
+			case REVEAL: return board.reveal(row, col);
+			case CHORD: return board.chord(row, col);
+			default:
+				if (board.getState(cells[move]) == Board.REVEALED) return new int[0];
+				board.cycleFlag(row, col);
+				return new int[] {cells[move]};
+		}
+	}
+
+	public static void putVarint(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte)value);
+	}
+
+	public static long getVarlong(ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; ; shift += 7) {
+			final byte b = buffer.get();
+			value |= (long)(b & 0x7F) << shift;
+			if (b >= 0) return value;
+		}
+	}
+
+	public static int getVarint(ByteBuffer buffer) {
+		return (int)getVarlong(buffer);
+	}
+
+	public long getStartTime() {
+		return startTime;
+	}
+	public long getSeed() {
+		return seed;
+	}
+	public int getRows() {
+		return rows;
+	}
+	public int getColumns() {
+		return columns;
+	}
+	public int getMines() {
+		return mines;
+	}
+	public int getMoveCount() {
+		return moves.length;
+	}
+	public int getMove(int move) {
+		return moves[move];
+	}
+	public int getCell(int move) {
+		return cells[move];
+	}
+	// ms from the start of the game to a move
+	public long getTime(int move) {
+		return times[move];
+	}
+}
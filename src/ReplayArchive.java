@@ -0,0 +1,70 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// reads games from a replay archive through a memory-mapped file, so only the games that are
+// opened are paged in
+public class ReplayArchive {
+	private final MappedByteBuffer buffer;
+	private final long[] offsets; // start of each record body, in archive order
+	private final int[] lengths;
+	private final int size;
+
+	public ReplayArchive(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Replay archive is larger than 2 GB: " + path);
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		byte[] magic = new byte[Replay.MAGIC.length];
+		if (buffer.remaining() < magic.length + 1) throw new IOException("Not a replay archive");
+		buffer.get(magic);
+		if (!Arrays.equals(magic, Replay.MAGIC) || buffer.get() != Replay.VERSION) {
+			throw new IOException("Not a replay archive, or a newer version: " + path);
+		}
+
+		// index of game offsets, built by skipping from one length to the next
+		long[] offsets = new long[64];
+		int[] lengths = new int[64];
+		int size = 0;
+		while (buffer.hasRemaining()) {
+			// a game cut off by a crash while it was written is left out, even when the cut is
+			// inside its length
+			final int length;
+			try {
+				length = Replay.getVarint(buffer);
+			} catch (BufferUnderflowException e) {
+				break;
+			}
+			if (length < 0 || length > buffer.remaining()) break;
+			if (size == offsets.length) {
+				offsets = Arrays.copyOf(offsets, size * 2);
+				lengths = Arrays.copyOf(lengths, size * 2);
+			}
+			offsets[size] = buffer.position();
+			lengths[size++] = length;
+			buffer.position(buffer.position() + length);
+		}
+		this.offsets = offsets;
+		this.lengths = lengths;
+		this.size = size;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public Replay get(int game) {
+		if (game < 0 || game >= size) throw new IndexOutOfBoundsException("Game " + game);
+		ByteBuffer record = buffer.duplicate();
+		record.position((int)offsets[game]).limit((int)offsets[game] + lengths[game]);
+		return Replay.read(record);
+	}
+}
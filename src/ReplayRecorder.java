@@ -0,0 +1,207 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// records each game's moves into a reused buffer and appends the finished game to an archive
+// as a subscriber to the game's events, only square boards are recorded
+public class ReplayRecorder implements AutoCloseable, GameEvents.Listener {
+	private static final int INITIAL_CAPACITY = 4096;
+	private static final int MAX_EVENT_SIZE = 2 * 10; // two varints of up to 10 bytes
+	private static final int MAX_FIELDS_SIZE = 8 + 8 + 7 * 5; // two longs, seven varints
+
+	private final FileChannel channel;
+	private final ByteBuffer fields = ByteBuffer.allocateDirect(MAX_FIELDS_SIZE);
+	private final ByteBuffer header = ByteBuffer.allocateDirect(5 + MAX_FIELDS_SIZE);
+	private ByteBuffer events = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
+	private long startTime; // epoch ms
+	private long lastEvent; // nanoTime of the previous event
+	private boolean recording;
+	private Board board; // of the game being recorded, from its reset event
+	// the archive could not be written, nothing more is recorded
+	private volatile boolean failed;
+	// finished games are appended in order on one thread, away from the EDT
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "replays");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public ReplayRecorder(Path path) throws IOException {
+		Files.createDirectories(path.toAbsolutePath().getParent());
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		// the archive grows with every game, so it is scanned on the writer before the first
+		// append rather than while the window opens
+		writer.execute(() -> {
+			try {
+				openArchive();
+			} catch (IOException e) {
+				failed = true;
+			}
+		});
+	}
+
+	// writes the header of a new archive, or positions the channel after the last game
+	private void openArchive() throws IOException {
+		if (channel.size() < Replay.MAGIC.length + 1) {
+			channel.truncate(0);
+			ByteBuffer magic = ByteBuffer.allocate(Replay.MAGIC.length + 1);
+			magic.put(Replay.MAGIC).put(Replay.VERSION).flip();
+			while (magic.hasRemaining()) channel.write(magic);
+		} else {
+			// a game cut off by a crash is dropped, or every game appended after it would be
+			// read as part of it
+			final long end = findEnd(channel);
+			if (end < channel.size()) channel.truncate(end);
+			channel.position(end);
+		}
+	}
+
+	// end of the last complete game, found by skipping from one length to the next
+	private static long findEnd(FileChannel channel) throws IOException {
+		final long size = channel.size();
+		ByteBuffer length = ByteBuffer.allocate(5); // the longest varint of an int
+		long position = Replay.MAGIC.length + 1;
+		while (position < size) {
+			length.clear();
+			while (length.hasRemaining()) {
+				if (channel.read(length, position + length.position()) <= 0) break;
+			}
+			length.flip();
+			try {
+				final int value = Replay.getVarint(length);
+				final long next = position + length.position() + value;
+				if (value < 0 || next > size) break;
+				position = next;
+			} catch (BufferUnderflowException e) {
+				break;
+			}
+		}
+		return position;
+	}
+
+	// starts recording a new game, dropping an unfinished one
+	public void begin() {
+		events.clear();
+		startTime = System.currentTimeMillis();
+		lastEvent = System.nanoTime();
+		recording = true;
+	}
+
+	// adds a move to the current game without allocating, unless the buffer has to grow
+	public void record(int move, int cell) {
+		if (!recording) return;
+		if (events.remaining() < MAX_EVENT_SIZE) {
+			ByteBuffer larger = ByteBuffer.allocateDirect(events.capacity() * 2);
+			events.flip();
+			larger.put(events);
+			events = larger;
+		}
+		final long now = System.nanoTime();
+		Replay.putVarint(events, (long)cell << 2 | move);
+		Replay.putVarint(events, (now - lastEvent) / 1_000_000);
+		// the remainder carries over so rounding never adds up
+		lastEvent = now - (now - lastEvent) % 1_000_000;
+	}
+
+	// appends the current game to the archive in the background, games that never placed
+	// mines are dropped
+	public void finish(Board board) {
+		if (!recording) return;
+		recording = false;
+		if (!board.isMinesSet()) return;
+
+		fields.clear();
+		fields.putLong(startTime).putLong(board.getSeed());
+		Replay.putVarint(fields, board.getRows());
+		Replay.putVarint(fields, board.getColumns());
+		Replay.putVarint(fields, board.getMines());
+		for (int value : board.getFreeArea()) Replay.putVarint(fields, value + 1);
+		fields.flip();
+		events.flip();
+
+		header.clear();
+		Replay.putVarint(header, fields.remaining() + events.remaining());
+		header.put(fields).flip();
+		// copied, as the buffers are reused by the next game while this one is written
+		final ByteBuffer record = ByteBuffer.allocate(header.remaining() + events.remaining());
+		record.put(header).put(events).flip();
+		writer.execute(() -> {
+			if (failed) return;
+			try {
+				while (record.hasRemaining()) channel.write(record);
+			} catch (IOException e) {
+				failed = true; // stop recording rather than fail every game
+			}
+		});
+	}
+
+	// GAME EVENTS
+
+	@Override
+	public void gameReset(Board board) {
+		this.board = board;
+		if (!failed && board.getTopology() == Topology.SQUARE) begin();
+		else cancel();
+	}
+
+	// a replay has to start from the first move
+	@Override
+	public void gameResumed(Board board, long elapsedMillis) {
+		cancel();
+	}
+
+	@Override
+	public void cellsRevealed(int move, int cell, int[] cells) {
+		record(move, cell);
+	}
+
+	@Override
+	public void flagChanged(int cell, byte state) {
+		record(Replay.FLAG, cell);
+	}
+
+	@Override
+	public void gameWon(long elapsedMillis) {
+		finish(board);
+	}
+
+	@Override
+	public void gameLost(long elapsedMillis) {
+		finish(board);
+	}
+
+	// a game left unfinished is still recorded
+	@Override
+	public void gameAbandoned(long elapsedMillis) {
+		finish(board);
+	}
+
+	// drops the current game, for games that can't be replayed from their first move
+	public void cancel() {
+		recording = false;
+	}
+
+	public boolean isRecording() {
+		return recording;
+	}
+
+	// waits for games still being written
+	@Override
+	public void close() throws IOException {
+		writer.shutdown();
+		try {
+			writer.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		channel.close();
+	}
+}
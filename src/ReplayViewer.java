@@ -0,0 +1,155 @@
+import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+// plays recorded games back at 1x to 100x, or jumps to any move by replaying the moves before it
+public class ReplayViewer implements ActionListener, ChangeListener {
+	private static final int[] SPEEDS = {1, 2, 5, 10, 25, 50, 100};
+	private static final int FRAME_MS = 15;
+	private static final int MAX_LISTED = 1000; // most recent games offered
+
+	private final ReplayArchive archive;
+	private final JDialog dialog;
+	private final JComboBox<String> gameBox;
+	private final JComboBox<String> speedBox;
+	private final JButton playButton;
+	private final JSlider moveSlider;
+	private final JLabel moveLabel;
+	private final BoardView boardView;
+	private final Timer timer = new Timer(FRAME_MS, this);
+
+	private Replay replay;
+	private Board board;
+	private int move; // moves applied to the board
+	private double playTime; // ms into the game
+	private long lastFrame; // nanoTime of the previous timer tick
+	private boolean sliderChanging; // the slider is being moved by playback, not the user
+
+	public ReplayViewer(JFrame owner, ReplayArchive archive, SpriteAtlas.Sprites sprites) {
+		this.archive = archive;
+		dialog = new JDialog(owner, "Replays", false);
+		dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+
+		// newest games first
+		SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+		String[] games = new String[Math.min(archive.size(), MAX_LISTED)];
+		for (int i = 0; i < games.length; i++) {
+			Replay game = archive.get(archive.size() - 1 - i);
+			games[i] = dateFormat.format(new Date(game.getStartTime())) + "  " + game.getRows() +
+					"x" + game.getColumns() + ", " + game.getMines() + " mines, " +
+					game.getMoveCount() + " moves";
+		}
+		gameBox = new JComboBox<>(games);
+		gameBox.addActionListener(this);
+
+		boardView = new BoardView();
+		boardView.setSprites(sprites); // no BoardInput, so the board can't be played
+		JScrollPane boardScrollPane = new JScrollPane(boardView);
+
+		playButton = new JButton("Play");
+		playButton.addActionListener(this);
+		String[] speeds = new String[SPEEDS.length];
+		for (int i = 0; i < speeds.length; i++) speeds[i] = SPEEDS[i] + "x";
+		speedBox = new JComboBox<>(speeds);
+		moveSlider = new JSlider(0, 0, 0);
+		moveSlider.addChangeListener(this);
+		moveLabel = new JLabel();
+
+		JPanel controlsPanel = new JPanel(new BorderLayout(5, 5));
+		JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+		buttonsPanel.add(playButton);
+		buttonsPanel.add(speedBox);
+		buttonsPanel.add(moveLabel);
+		controlsPanel.add(buttonsPanel, BorderLayout.WEST);
+		controlsPanel.add(moveSlider, BorderLayout.CENTER);
+
+		JPanel panel = new JPanel(new BorderLayout(5, 5));
+		panel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+		panel.add(gameBox, BorderLayout.NORTH);
+		panel.add(boardScrollPane, BorderLayout.CENTER);
+		panel.add(controlsPanel, BorderLayout.SOUTH);
+		dialog.setContentPane(panel);
+
+		load(archive.size() - 1);
+		dialog.pack();
+		dialog.setLocationRelativeTo(owner);
+	}
+
+	public void show() {
+		dialog.setVisible(true);
+	}
+
+	private void load(int game) {
+		pause();
+		replay = archive.get(game);
+		sliderChanging = true;
+		moveSlider.setMaximum(replay.getMoveCount());
+		sliderChanging = false;
+		jump(0);
+		dialog.pack();
+	}
+
+	// rebuilds the board with the first moves applied, headless and without painting each move
+	private void jump(int move) {
+		this.move = move;
+		board = replay.getBoard(move);
+		playTime = move > 0 ? replay.getTime(move - 1) : 0;
+		boardView.setBoard(board);
+		if (board.isExploded() || board.isWin()) boardView.setGameOver(true);
+		update();
+	}
+
+	private void play() {
+		if (move == replay.getMoveCount()) jump(0);
+		lastFrame = System.nanoTime();
+		timer.start();
+		playButton.setText("Pause");
+	}
+
+	private void pause() {
+		timer.stop();
+		playButton.setText("Play");
+	}
+
+	// applies every move due by now at the chosen speed
+	private void step() {
+		final long now = System.nanoTime();
+		playTime += (now - lastFrame) / 1e6 * SPEEDS[speedBox.getSelectedIndex()];
+		lastFrame = now;
+		while (move < replay.getMoveCount() && replay.getTime(move) <= playTime) {
+			boardView.repaintCells(replay.apply(board, move++));
+		}
+		if (board.isExploded() || board.isWin()) boardView.setGameOver(true);
+		if (move == replay.getMoveCount()) pause();
+		update();
+	}
+
+	private void update() {
+		moveLabel.setText("Move " + move + " / " + replay.getMoveCount());
+		sliderChanging = true;
+		moveSlider.setValue(move);
+		sliderChanging = false;
+	}
+
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		Object src = e.getSource();
+		if (src == timer) step();
+		else if (src == playButton) {
+			if (timer.isRunning()) pause();
+			else play();
+		}
+		else if (src == gameBox) load(archive.size() - 1 - gameBox.getSelectedIndex());
+	}
+
+	@Override
+	public void stateChanged(ChangeEvent e) {
+		if (sliderChanging || moveSlider.getValue() == move) return;
+		jump(moveSlider.getValue());
+	}
+}
@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// the game left open when the window was closed, with the difficulty and theme to come back to
+//
+// file: "MSSV", int version, ints rows, columns, mines, long elapsed time (ms), short length
+//       and UTF-8 topology name (version 2 on, version 1 saves are square), short length and
+//       UTF-8 icon set name, byte 1 if a game is in progress, then for a game the mines as
+//       a bitset (bit i % 64 of long i / 64) and the cell states packed 2 bits to a cell
+//       (bits (i % 32) * 2 of long i / 32), so a 1000x1000 board takes 375 KB
+public class SavedGame {
+	private static final int MAGIC = 0x4D535356; // "MSSV"
+	private static final int VERSION = 2;
+
+	private final Difficulty difficulty;
+	private final Topology topology;
+	private final String iconSet;
+	private final Board board; // null if no game was in progress
+	private final long elapsedMillis;
+
+	private SavedGame(Difficulty difficulty, Topology topology, String iconSet, Board board,
+			long elapsedMillis) {
+		this.difficulty = difficulty;
+		this.topology = topology;
+		this.iconSet = iconSet;
+		this.board = board;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	// writes the whole file from one buffer to a temporary file and renames it over the old
+	// one, so a crash part way through never leaves a damaged save
+	public static void write(Path path, Difficulty difficulty, Topology topology, String iconSet,
+			Board board, long elapsedMillis) throws IOException {
+		final int cells = difficulty.getRows() * difficulty.getColumns();
+		final int mineWords = (cells + 63) >>> 6, stateWords = (cells + 31) >>> 5;
+		byte[] topologyName = topology.getName().getBytes(StandardCharsets.UTF_8);
+		byte[] name = iconSet.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer buffer = ByteBuffer.allocate(4 * 5 + 8 + 2 + topologyName.length + 2 +
+				name.length + 1 + (board != null ? (mineWords + stateWords) * 8 : 0));
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(difficulty.getRows())
+				.putInt(difficulty.getColumns()).putInt(difficulty.getMines())
+				.putLong(elapsedMillis).putShort((short)topologyName.length).put(topologyName)
+				.putShort((short)name.length).put(name).put((byte)(board != null ? 1 : 0));
+
+		if (board != null) {
+			LongBuffer words = buffer.asLongBuffer();
+			long word = 0;
+			for (int i = 0; i < cells; i++) {
+				if (board.isMine(i)) word |= 1L << i;
+				if ((i & 63) == 63 || i == cells - 1) {
+					words.put(word);
+					word = 0;
+				}
+			}
+			for (int i = 0; i < cells; i++) {
+				word |= (long)board.getState(i) << ((i & 31) << 1);
+				if ((i & 31) == 31 || i == cells - 1) {
+					words.put(word);
+					word = 0;
+				}
+			}
+		}
+		buffer.clear();
+
+		Files.createDirectories(path.toAbsolutePath().getParent());
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) channel.write(buffer);
+			channel.force(false);
+		}
+		Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	// null if there is no save, or it can't be read
+	public static SavedGame read(Path path) {
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+			if (buffer.getInt() != MAGIC) return null;
+			final int version = buffer.getInt();
+			if (version < 1 || version > VERSION) return null;
+			Difficulty difficulty = new Difficulty(buffer.getInt(), buffer.getInt(),
+					buffer.getInt());
+			final long elapsedMillis = buffer.getLong();
+			Topology topology = Topology.SQUARE;
+			if (version >= 2) {
+				byte[] topologyName = new byte[buffer.getShort()];
+				buffer.get(topologyName);
+				topology = Topology.parse(new String(topologyName, StandardCharsets.UTF_8));
+			}
+			byte[] name = new byte[buffer.getShort()];
+			buffer.get(name);
+			Board board = null;
+
+			if (buffer.get() == 1) {
+				final int cells = difficulty.getRows() * difficulty.getColumns();
+				LongBuffer words = buffer.asLongBuffer();
+				long[] mineBits = new long[(cells + 63) >>> 6];
+				words.get(mineBits);
+				long[] stateBits = new long[(cells + 31) >>> 5];
+				words.get(stateBits);
+				byte[] states = new byte[cells];
+				for (int i = 0; i < cells; i++) {
+					states[i] = (byte)(stateBits[i >>> 5] >>> ((i & 31) << 1) & 3);
+				}
+				board = new Board(difficulty, topology);
+				board.restore(mineBits, states);
+			}
+			return new SavedGame(difficulty, topology, new String(name, StandardCharsets.UTF_8),
+					board, elapsedMillis);
+		} catch (IOException | RuntimeException e) {
+			return null; // missing, cut short or from a bad board, start a new game instead
+		}
+	}
+
+	public Difficulty getDifficulty() {
+		return difficulty;
+	}
+	public Topology getTopology() {
+		return topology;
+	}
+	public String getIconSet() {
+		return iconSet;
+	}
+	public Board getBoard() {
+		return board;
+	}
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+}
@@ -0,0 +1,212 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// plays games headlessly with a bot on every core, using only Board and Solver so no AWT
+// class is loaded
+//
+// usage: java Simulator [beginner|intermediate|expert|ROWSxCOLUMNS/MINES] [random|first-safe|
+//        solver] [games] [-noguess] [-seed SEED] [-threads THREADS] [-topology square|
+//        wraparound|hexagonal|layered:LAYERS]
+public class Simulator {
+	// picks the moves of one game, a new strategy is made for every game
+	public interface Strategy {
+		// cells to reveal next, revealed in order until the game ends,
+		// never called on a finished game
+		int[] nextMoves(Board board, SplittableRandom random);
+	}
+
+	// reveals any hidden cell
+	public static class RandomStrategy implements Strategy {
+		@Override
+		public int[] nextMoves(Board board, SplittableRandom random) {
+			return new int[] {randomHidden(board, random)};
+		}
+	}
+
+	// reveals cells the solver proves safe, guessing at random when there are none
+	public static class FirstSafeStrategy implements Strategy {
+		@Override
+		public int[] nextMoves(Board board, SplittableRandom random) {
+			if (!board.isMinesSet()) return new int[] {center(board)};
+			int[] safe = new Solver(board, null).findSafe();
+			return safe.length > 0 ? safe : new int[] {randomHidden(board, random)};
+		}
+	}
+
+	// reveals cells the solver proves safe, otherwise the cell least likely to be a mine
+	public static class SolverStrategy implements Strategy {
+		@Override
+		public int[] nextMoves(Board board, SplittableRandom random) {
+			if (!board.isMinesSet()) return new int[] {center(board)};
+			Solver solver = new Solver(board, null);
+			int[] safe = solver.findSafe();
+			return safe.length > 0 ? safe : new int[] {solver.solve().getBestGuess()};
+		}
+	}
+
+	private static int center(Board board) {
+		return board.index(board.getRows() / 2, board.getColumns() / 2);
+	}
+
+	private static int randomHidden(Board board, SplittableRandom random) {
+		final int cells = board.getRows() * board.getColumns();
+		int cell;
+		do {
+			cell = random.nextInt(cells);
+		} while (board.getState(cell) != Board.HIDDEN);
+		return cell;
+	}
+
+	private static Strategy getStrategy(String name) {
+		switch (name) {
+			case "random": return new RandomStrategy();
+			case "first-safe": return new FirstSafeStrategy();
+			case "solver": return new SolverStrategy();
+			default: throw new IllegalArgumentException("Unknown strategy: " + name);
+		}
+	}
+
+	private static Difficulty getDifficulty(String name) {
+		switch (name) {
+			case "beginner": return new Difficulty(9, 9, 10);
+			case "intermediate": return new Difficulty(16, 16, 40);
+			case "expert": return new Difficulty(16, 30, 99);
+		}
+		// ROWSxCOLUMNS/MINES
+		String[] size = name.split("[x/]");
+		if (size.length != 3) throw new IllegalArgumentException("Unknown difficulty: " + name);
+		return new Difficulty(Integer.parseInt(size[0]), Integer.parseInt(size[1]),
+				Integer.parseInt(size[2]));
+	}
+
+	// results of the games played by one thread
+	private static class Results {
+		private int wins;
+		private int guessing; // no guessing games that found no such board in time
+		private long clicks;
+		private final long[] latencies; // nanoseconds per game
+
+		private Results(int games) {
+			latencies = new long[games];
+		}
+	}
+
+	private static Results play(Difficulty difficulty, Topology topology, String strategyName,
+			boolean noGuess, long seed, int first, int games) {
+		Results results = new Results(games);
+		Board board = new Board(difficulty.getRows(), difficulty.getColumns(),
+				difficulty.getMines(), 0, topology);
+		Board generator = noGuess ? new Board(difficulty, 0) : null;
+		for (int game = 0; game < games; game++) {
+			// every game is reproducible from the seed and its number, except no guessing
+			// boards which are generated from random seeds
+			SplittableRandom random = new SplittableRandom(seed + first + game);
+			Strategy strategy = getStrategy(strategyName);
+			final long start = System.nanoTime();
+
+			board.reset(random.nextLong());
+			while (!board.isExploded() && !board.isWin()) {
+				for (int cell : strategy.nextMoves(board, random)) {
+					if (board.getState(cell) != Board.HIDDEN) continue;
+					final int row = board.getRow(cell), col = board.getColumn(cell);
+					if (!board.isMinesSet() && noGuess) {
+						OptionalLong noGuessSeed = NoGuessPool.generate(generator, row, col);
+						if (noGuessSeed.isPresent()) {
+							board.setSeed(noGuessSeed.getAsLong());
+							NoGuessPool.placeMines(board, row, col);
+						} else {
+							results.guessing++; // played on an ordinary board instead
+						}
+					}
+					board.reveal(row, col);
+					results.clicks++;
+					if (board.isExploded() || board.isWin()) break;
+				}
+			}
+
+			results.latencies[game] = System.nanoTime() - start;
+			if (board.isWin()) results.wins++;
+		}
+		return results;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Difficulty difficulty = getDifficulty(args.length > 0 ? args[0] : "expert");
+		String strategy = args.length > 1 ? args[1] : "solver";
+		getStrategy(strategy); // fails early on an unknown name
+		int games = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+		boolean noGuess = false;
+		long seed = System.nanoTime();
+		int threads = Runtime.getRuntime().availableProcessors();
+		Topology topology = Topology.SQUARE;
+		for (int i = 3; i < args.length; i++) {
+			if (args[i].equals("-noguess")) noGuess = true;
+			else if (args[i].equals("-seed")) seed = Long.parseLong(args[++i]);
+			else if (args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-topology")) topology = Topology.parse(args[++i]);
+			else throw new IllegalArgumentException("Unknown option: " + args[i]);
+		}
+		if (noGuess && (!NoGuessPool.isSupported(difficulty) || topology != Topology.SQUARE)) {
+			throw new IllegalArgumentException("No guessing is not supported on this board");
+		}
+
+		System.out.printf("%dx%d %s, %d mines, %s%s, %d games on %d threads, seed %d%n",
+				difficulty.getRows(), difficulty.getColumns(), topology.getName(),
+				difficulty.getMines(), strategy, noGuess ? " (no guessing)" : "", games, threads,
+				seed);
+
+		// games are split evenly, each thread reuses one board
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Callable<Results>> tasks = new ArrayList<>(threads);
+		final long start = System.nanoTime();
+		for (int t = 0; t < threads; t++) {
+			final int first = (int)((long)games * t / threads);
+			final int count = (int)((long)games * (t + 1) / threads) - first;
+			final boolean finalNoGuess = noGuess;
+			final long finalSeed = seed;
+			final Topology finalTopology = topology;
+			tasks.add(() -> play(difficulty, finalTopology, strategy, finalNoGuess, finalSeed,
+					first, count));
+		}
+		List<Future<Results>> futures = executor.invokeAll(tasks);
+
+		int wins = 0, guessing = 0;
+		long clicks = 0;
+		long[] latencies = new long[games];
+		int filled = 0;
+		for (Future<Results> future : futures) {
+			Results results = future.get();
+			wins += results.wins;
+			guessing += results.guessing;
+			clicks += results.clicks;
+			System.arraycopy(results.latencies, 0, latencies, filled, results.latencies.length);
+			filled += results.latencies.length;
+		}
+		final double seconds = (System.nanoTime() - start) / 1e9;
+		executor.shutdown();
+
+		Arrays.sort(latencies);
+		System.out.printf("win rate %.2f%%, average clicks %.1f%n", 100.0 * wins / games,
+				(double)clicks / games);
+		if (guessing > 0) {
+			System.out.printf("%d games had no board without guessing in time and were played " +
+					"on ordinary boards%n", guessing);
+		}
+		System.out.printf("%.0f games/s, latency p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, " +
+				"max %.3f ms%n", games / seconds, percentile(latencies, 50),
+				percentile(latencies, 90), percentile(latencies, 99), percentile(latencies, 100));
+	}
+
+	private static double percentile(long[] sorted, double percent) {
+		if (sorted.length == 0) return 0;
+		final int i = (int)Math.ceil(percent / 100 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(i, sorted.length - 1))] / 1e6;
+	}
+}
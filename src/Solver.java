@@ -0,0 +1,666 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// finds safe cells, certain mines, and mine probabilities using only what the player can see
+public class Solver {
+	// search steps spent on one frontier component before it falls back to the rules
+	private static final long MAX_SEARCH_NODES = 2_000_000;
+	// beyond these the global mine count is approximated by the average mine density
+	private static final int MAX_COMBINED_COMPONENTS = 32;
+	private static final int MAX_COMBINED_MINES = 1024;
+
+	// what the solver knows about a cell
+	private static final byte UNKNOWN = 0;
+	private static final byte SAFE = 1;
+	private static final byte MINE = 2;
+
+	private final Board board;
+	private final ForkJoinPool pool;
+	// nanoseconds the search may take from the start of a solve, components still searching
+	// then give up as if they were too large
+	private final long timeLimit;
+	private long start;
+	private boolean timedOut;
+
+	// cells are unknown until a rule or the enumeration decides them, revealed cells are safe
+	private byte[] known;
+	private int[] safe, mines;
+	private int safeCount, mineCount;
+
+	// constraints from revealed numbers: cells of constraint c are in
+	// constraintCells[constraintStart[c]..constraintStart[c + 1]), with constraintMines[c] mines
+	private int[] constraintStart, constraintCells, constraintMines;
+	// constraints touching cell i are in cellConstraints[cellStart[i]..cellStart[i + 1])
+	private int[] cellStart, cellConstraints;
+
+	public static class Result {
+		public final int[] safe; // hidden cells that cannot be mines
+		public final int[] mines; // hidden cells that must be mines
+		// chance of a mine in each cell, NaN when revealed, null when only the rules ran
+		public final double[] probabilities;
+
+		private Result(int[] safe, int[] mines, double[] probabilities) {
+			this.safe = safe;
+			this.mines = mines;
+			this.probabilities = probabilities;
+		}
+
+		// hidden cell least likely to be a mine, -1 if there is none
+		public int getBestGuess() {
+			int best = -1;
+			for (int i = 0; i < probabilities.length; i++) {
+				if (Double.isNaN(probabilities[i])) continue;
+				if (best < 0 || probabilities[i] < probabilities[best]) best = i;
+			}
+			return best;
+		}
+	}
+
+	public Solver(Board board) {
+		this(board, ForkJoinPool.commonPool());
+	}
+
+	// with no pool the components are enumerated on the calling thread
+	public Solver(Board board, ForkJoinPool pool) {
+		this(board, pool, Long.MAX_VALUE);
+	}
+
+	public Solver(Board board, long timeLimitMillis) {
+		this(board, ForkJoinPool.commonPool(), timeLimitMillis);
+	}
+
+	private Solver(Board board, ForkJoinPool pool, long timeLimitMillis) {
+		this.board = board;
+		this.pool = pool;
+		timeLimit = timeLimitMillis == Long.MAX_VALUE ? Long.MAX_VALUE :
+				timeLimitMillis * 1_000_000;
+	}
+
+	// true if the last solve or findSafe ran out of time, leaving part of the frontier
+	// unsearched
+	public boolean isTimedOut() {
+		return timedOut;
+	}
+
+	public Result solve() {
+		final int cells = board.getRows() * board.getColumns();
+		deduce(cells);
+
+		double[] probabilities = new double[cells];
+		enumerate(probabilities);
+
+		for (int i = 0; i < cells; i++) {
+			if (board.getState(i) == Board.REVEALED) probabilities[i] = Double.NaN;
+			else if (known[i] == SAFE) probabilities[i] = 0;
+			else if (known[i] == MINE) probabilities[i] = 1;
+		}
+		return new Result(Arrays.copyOf(safe, safeCount), Arrays.copyOf(mines, mineCount),
+				probabilities);
+	}
+
+	// safe cells only, skipping the enumeration when the rules already find some
+	public int[] findSafe() {
+		final int cells = board.getRows() * board.getColumns();
+		deduce(cells);
+		if (safeCount == 0) enumerate(new double[cells]);
+		return Arrays.copyOf(safe, safeCount);
+	}
+
+	// what the rules alone decide, without the enumeration, for the tests
+	Result deduceRules() {
+		deduce(board.getRows() * board.getColumns());
+		return new Result(Arrays.copyOf(safe, safeCount), Arrays.copyOf(mines, mineCount), null);
+	}
+
+	// deduces what the rules can from the revealed numbers
+	private void deduce(int cells) {
+		start = System.nanoTime();
+		timedOut = false;
+		known = new byte[cells];
+		safe = new int[cells];
+		mines = new int[cells];
+		safeCount = mineCount = 0;
+
+		for (int i = 0; i < cells; i++) {
+			if (board.getState(i) == Board.REVEALED) known[i] = SAFE;
+		}
+		buildConstraints();
+		applyRules();
+	}
+
+	private void buildConstraints() {
+		final int cells = board.getRows() * board.getColumns();
+		final Topology.Table neighbours = board.getNeighbours();
+		cellStart = new int[cells + 1];
+
+		// first pass counts, second pass fills
+		int constraints = 0, size = 0;
+		for (int i = 0; i < cells; i++) {
+			if (board.getState(i) != Board.REVEALED || board.getCount(i) <= 0) continue;
+			int hidden = 0;
+			for (int k = neighbours.getStart(i), end = neighbours.getEnd(i); k < end; k++) {
+				final int j = i + neighbours.offsets[k];
+				if (board.getState(j) == Board.REVEALED) continue;
+				hidden++;
+				cellStart[j + 1]++;
+			}
+			if (hidden == 0) continue;
+			constraints++;
+			size += hidden;
+		}
+
+		constraintStart = new int[constraints + 1];
+		constraintCells = new int[size];
+		constraintMines = new int[constraints];
+		for (int i = 0; i < cells; i++) cellStart[i + 1] += cellStart[i];
+		cellConstraints = new int[cellStart[cells]];
+		int[] cellFill = Arrays.copyOf(cellStart, cells);
+
+		int constraint = 0, fill = 0;
+		for (int i = 0; i < cells; i++) {
+			if (board.getState(i) != Board.REVEALED || board.getCount(i) <= 0) continue;
+			final int start = fill;
+			for (int k = neighbours.getStart(i), end = neighbours.getEnd(i); k < end; k++) {
+				final int j = i + neighbours.offsets[k];
+				if (board.getState(j) == Board.REVEALED) continue;
+				constraintCells[fill++] = j;
+				cellConstraints[cellFill[j]++] = constraint;
+			}
+			if (fill == start) continue;
+			constraintStart[constraint] = start;
+			constraintMines[constraint] = board.getCount(i);
+			constraintStart[++constraint] = fill;
+		}
+	}
+
+	// SINGLE CELL AND PAIR RULES
+
+	private int[] queue;
+	private boolean[] queued;
+	private int queueHead, queueTail;
+
+	private void applyRules() {
+		final int constraints = constraintMines.length;
+		// one slot more than can ever be queued, so a full queue never looks empty
+		queue = new int[constraints + 1];
+		queued = new boolean[constraints];
+		queueHead = 0;
+		queueTail = 0;
+		for (int c = 0; c < constraints; c++) enqueue(c);
+
+		while (queueTail != queueHead) {
+			final int a = queue[queueHead];
+			queueHead = (queueHead + 1) % queue.length;
+			queued[a] = false;
+			if (!applySingleRule(a)) applyPairRules(a);
+		}
+	}
+
+	private void enqueue(int constraint) {
+		if (queued[constraint]) return;
+		queued[constraint] = true;
+		queue[queueTail] = constraint;
+		queueTail = (queueTail + 1) % queue.length;
+	}
+
+	private void setKnown(int cell, byte value) {
+		if (known[cell] != UNKNOWN) return;
+		known[cell] = value;
+		if (value == SAFE) safe[safeCount++] = cell;
+		else mines[mineCount++] = cell;
+		// constraints on this cell may now be decidable
+		for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) enqueue(cellConstraints[k]);
+	}
+
+	// mines of a constraint not yet accounted for by known mines
+	private int remainingMines(int constraint) {
+		int remaining = constraintMines[constraint];
+		for (int k = constraintStart[constraint]; k < constraintStart[constraint + 1]; k++) {
+			if (known[constraintCells[k]] == MINE) remaining--;
+		}
+		return remaining;
+	}
+
+	private int unknownCells(int constraint) {
+		int unknown = 0;
+		for (int k = constraintStart[constraint]; k < constraintStart[constraint + 1]; k++) {
+			if (known[constraintCells[k]] == UNKNOWN) unknown++;
+		}
+		return unknown;
+	}
+
+	// a number with all its mines found makes the rest safe, one with as many unknown
+	// neighbours as mines left makes them all mines
+	private boolean applySingleRule(int constraint) {
+		final int remaining = remainingMines(constraint), unknown = unknownCells(constraint);
+		if (unknown == 0 || (remaining != 0 && remaining != unknown)) return false;
+
+		final byte value = remaining == 0 ? SAFE : MINE;
+		for (int k = constraintStart[constraint]; k < constraintStart[constraint + 1]; k++) {
+			setKnown(constraintCells[k], value);
+		}
+		return true;
+	}
+
+	// compares a constraint with every constraint it overlaps: the mines shared between them
+	// bound the mines in the cells only one of them touches
+	private void applyPairRules(int a) {
+		final int aRemaining = remainingMines(a);
+		for (int ka = constraintStart[a]; ka < constraintStart[a + 1]; ka++) {
+			final int cell = constraintCells[ka];
+			if (known[cell] != UNKNOWN) continue;
+			for (int kc = cellStart[cell]; kc < cellStart[cell + 1]; kc++) {
+				final int b = cellConstraints[kc];
+				if (b == a) continue;
+
+				int onlyA = 0, onlyB = 0, both = 0;
+				for (int k = constraintStart[a]; k < constraintStart[a + 1]; k++) {
+					final int i = constraintCells[k];
+					if (known[i] != UNKNOWN) continue;
+					if (contains(b, i)) both++;
+					else onlyA++;
+				}
+				for (int k = constraintStart[b]; k < constraintStart[b + 1]; k++) {
+					final int i = constraintCells[k];
+					if (known[i] == UNKNOWN && !contains(a, i)) onlyB++;
+				}
+				if (onlyB == 0) continue;
+
+				final int bRemaining = remainingMines(b);
+				final int minBoth = Math.max(0, aRemaining - onlyA);
+				final int maxBoth = Math.min(both, Math.min(aRemaining, bRemaining));
+				byte value;
+				if (bRemaining - maxBoth == onlyB) value = MINE;
+				else if (bRemaining - minBoth == 0) value = SAFE;
+				else continue;
+
+				for (int k = constraintStart[b]; k < constraintStart[b + 1]; k++) {
+					final int i = constraintCells[k];
+					if (known[i] == UNKNOWN && !contains(a, i)) setKnown(i, value);
+				}
+				// the counts just changed, so a's other pairs are tried again from the queue
+				enqueue(a);
+				return;
+			}
+		}
+	}
+
+	private boolean contains(int constraint, int cell) {
+		for (int k = constraintStart[constraint]; k < constraintStart[constraint + 1]; k++) {
+			if (constraintCells[k] == cell) return true;
+		}
+		return false;
+	}
+
+	// EXACT ENUMERATION
+
+	// the unknown cells of one independent part of the frontier
+	private class Component extends RecursiveAction {
+		private static final long serialVersionUID = -3148542960147209716L;
+
+		private final int[] cells;
+		private final int maxTotal; // mines left on the whole board
+		private boolean exact = true; // false if the search gave up
+		private boolean timedOut; // gave up when the solver's time ran out
+		private long nodes;
+
+		// cells touching exactly the same numbers are searched together as one group,
+		// choosing how many of its cells are mines rather than which ones
+		private int[] cellGroup, groupSizes;
+		private int[][] groupConstraints; // local constraints of each group
+		private int[] required, assignedMines, unassigned; // per local constraint
+		private int[] groupMines; // mines chosen for each group in the current layout
+
+		// solutions[k] = layouts with k mines, cellMines[k][i] = those where cell i is one,
+		// kept as doubles since grouped counts grow past a long
+		private double[] solutions;
+		private double[][] cellMines;
+		private double[][] groupMineCounts; // layouts where each cell of a group is a mine
+		private int minMines, maxMines; // range of possible mine counts
+
+		private Component(int[] cells, int[] constraints, int[] localIndex, int maxTotal) {
+			this.cells = cells;
+			this.maxTotal = maxTotal;
+			minMines = 0;
+			maxMines = cells.length;
+
+			required = new int[constraints.length];
+			assignedMines = new int[constraints.length];
+			unassigned = new int[constraints.length];
+			List<List<Integer>> cellConstraints = new ArrayList<>();
+			for (int i = 0; i < cells.length; i++) cellConstraints.add(new ArrayList<>());
+			for (int c = 0; c < constraints.length; c++) {
+				required[c] = remainingMines(constraints[c]);
+				for (int k = constraintStart[constraints[c]];
+						k < constraintStart[constraints[c] + 1]; k++) {
+					final int cell = constraintCells[k];
+					if (known[cell] == UNKNOWN) cellConstraints.get(localIndex[cell]).add(c);
+				}
+			}
+
+			// groups are numbered in the order their first cell was reached
+			Map<List<Integer>, Integer> groups = new HashMap<>();
+			cellGroup = new int[cells.length];
+			for (int i = 0; i < cells.length; i++) {
+				Integer group = groups.get(cellConstraints.get(i));
+				if (group == null) groups.put(cellConstraints.get(i), group = groups.size());
+				cellGroup[i] = group;
+			}
+			groupSizes = new int[groups.size()];
+			groupConstraints = new int[groups.size()][];
+			for (int i = 0; i < cells.length; i++) {
+				final int group = cellGroup[i];
+				if (groupSizes[group]++ > 0) continue;
+				groupConstraints[group] = cellConstraints.get(i).stream()
+						.mapToInt(Integer::intValue).toArray();
+			}
+			for (int group = 0; group < groupSizes.length; group++) {
+				for (int c : groupConstraints[group]) unassigned[c] += groupSizes[group];
+			}
+			groupMines = new int[groups.size()];
+		}
+
+		@Override
+		protected void compute() {
+			solutions = new double[cells.length + 1];
+			groupMineCounts = new double[cells.length + 1][groupSizes.length];
+			search(0, 0, 1);
+			if (!exact) {
+				solutions = null;
+				groupMineCounts = null;
+				return;
+			}
+
+			cellMines = new double[cells.length + 1][cells.length];
+			for (int k = 0; k <= cells.length; k++) {
+				for (int i = 0; i < cells.length; i++) {
+					cellMines[k][i] = groupMineCounts[k][cellGroup[i]];
+				}
+			}
+			groupMineCounts = null;
+
+			minMines = cells.length;
+			maxMines = 0;
+			for (int k = 0; k <= cells.length; k++) {
+				if (solutions[k] == 0) continue;
+				minMines = Math.min(minMines, k);
+				maxMines = Math.max(maxMines, k);
+			}
+		}
+
+		// groups are in the order they were reached, so neighbouring numbers fail early
+		private void search(int group, int mineTotal, double layouts) {
+			if (++nodes > MAX_SEARCH_NODES) exact = false;
+			// the clock is read every few thousand steps
+			if ((nodes & 0xfff) == 0 && System.nanoTime() - start > timeLimit) {
+				exact = false;
+				timedOut = true;
+			}
+			if (!exact || mineTotal > maxTotal) return;
+			if (group == groupSizes.length) {
+				solutions[mineTotal] += layouts;
+				// each cell of a group is a mine in mines / size of its layouts, whole groups
+				// of mines add exactly the layouts so cells that are always mines still match
+				for (int g = 0; g < groupSizes.length; g++) {
+					if (groupMines[g] == groupSizes[g]) {
+						groupMineCounts[mineTotal][g] += layouts;
+					} else if (groupMines[g] > 0) {
+						groupMineCounts[mineTotal][g] += layouts * groupMines[g] / groupSizes[g];
+					}
+				}
+				return;
+			}
+			final int size = groupSizes[group];
+			double ways = 1; // size choose mines
+			for (int mines = 0; mines <= size; mines++) {
+				if (assign(group, mines)) search(group + 1, mineTotal + mines, layouts * ways);
+				unassign(group, mines);
+				ways = ways * (size - mines) / (mines + 1);
+			}
+		}
+
+		// returns false if a constraint can no longer be satisfied
+		private boolean assign(int group, int mines) {
+			groupMines[group] = mines;
+			boolean valid = true;
+			for (int c : groupConstraints[group]) {
+				unassigned[c] -= groupSizes[group];
+				assignedMines[c] += mines;
+				if (assignedMines[c] > required[c] ||
+						assignedMines[c] + unassigned[c] < required[c]) valid = false;
+			}
+			return valid;
+		}
+
+		private void unassign(int group, int mines) {
+			groupMines[group] = 0;
+			for (int c : groupConstraints[group]) {
+				unassigned[c] += groupSizes[group];
+				assignedMines[c] -= mines;
+			}
+		}
+
+		// solutions for each mine count, scaled so the largest is 1 (the scale cancels out)
+		private double[] getDistribution() {
+			double[] distribution = new double[cells.length + 1];
+			if (!exact) {
+				Arrays.fill(distribution, 1);
+				return distribution;
+			}
+			double max = 0;
+			for (double count : solutions) max = Math.max(max, count);
+			for (int k = 0; k < distribution.length; k++) distribution[k] = solutions[k] / max;
+			return distribution;
+		}
+	}
+
+	// splits the unknown frontier cells into groups that share no numbers
+	private List<Component> findComponents() {
+		final int constraints = constraintMines.length;
+		boolean[] visitedConstraint = new boolean[constraints];
+		int[] localIndex = new int[known.length];
+		Arrays.fill(localIndex, -1);
+		List<Component> components = new ArrayList<>();
+
+		int[] stack = new int[constraints];
+		int[] componentConstraints = new int[constraints];
+		int[] componentCells = new int[known.length];
+		for (int start = 0; start < constraints; start++) {
+			if (visitedConstraint[start] || unknownCells(start) == 0) continue;
+
+			// walks constraints that share unknown cells
+			int top = 0, constraintCount = 0, cellCount = 0;
+			stack[top++] = start;
+			visitedConstraint[start] = true;
+			while (top > 0) {
+				final int constraint = stack[--top];
+				componentConstraints[constraintCount++] = constraint;
+				for (int k = constraintStart[constraint]; k < constraintStart[constraint + 1];
+						k++) {
+					final int cell = constraintCells[k];
+					if (known[cell] != UNKNOWN || localIndex[cell] >= 0) continue;
+					localIndex[cell] = cellCount;
+					componentCells[cellCount++] = cell;
+					for (int kc = cellStart[cell]; kc < cellStart[cell + 1]; kc++) {
+						final int next = cellConstraints[kc];
+						if (visitedConstraint[next]) continue;
+						visitedConstraint[next] = true;
+						stack[top++] = next;
+					}
+				}
+			}
+			components.add(new Component(Arrays.copyOf(componentCells, cellCount),
+					Arrays.copyOf(componentConstraints, constraintCount), localIndex,
+					board.getMines() - mineCount));
+		}
+		return components;
+	}
+
+	private void enumerate(double[] probabilities) {
+		List<Component> components = findComponents();
+		// independent components are enumerated in parallel
+		if (pool == null || components.size() == 1) {
+			for (Component component : components) component.compute();
+		} else if (components.size() > 1) {
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 5208137296473183862L;
+
+				@Override
+				protected void compute() {
+					invokeAll(components);
+				}
+			});
+		}
+
+		// cells away from the frontier share the mines the frontier does not hold
+		boolean[] frontier = new boolean[known.length];
+		int frontierCells = 0, minTotal = 0, maxTotal = 0;
+		for (Component component : components) {
+			timedOut |= component.timedOut;
+			for (int cell : component.cells) frontier[cell] = true;
+			frontierCells += component.cells.length;
+			minTotal += component.minMines;
+			maxTotal += component.maxMines;
+		}
+		int interior = 0;
+		for (int i = 0; i < known.length; i++) {
+			if (known[i] == UNKNOWN && !frontier[i]) interior++;
+		}
+		final int remaining = board.getMines() - mineCount;
+		final double density = frontierCells + interior == 0 ? 0 :
+				Math.max(0, Math.min(1, (double)remaining / (frontierCells + interior)));
+
+		// small frontiers weigh each mine count by the ways the interior can hold the rest,
+		// larger ones treat every unknown cell as having the average density
+		final boolean combined = components.size() <= MAX_COMBINED_COMPONENTS &&
+				maxTotal <= MAX_COMBINED_MINES;
+		// the frontier holds up to one mine per cell, whichever component is weighed
+		final double[] interiorWeights = combined ?
+				getInteriorWeights(frontierCells, remaining, interior) : null;
+
+		for (int c = 0; c < components.size(); c++) {
+			Component component = components.get(c);
+			if (!component.exact) {
+				for (int cell : component.cells) probabilities[cell] = density;
+				continue;
+			}
+
+			// weight of each mine count in this component, summed over the rest of the board
+			final int size = component.cells.length;
+			double[] weights = new double[size + 1];
+			if (combined) {
+				double[] others = convolve(components, c);
+				for (int k = 0; k <= size; k++) {
+					if (component.solutions[k] == 0) continue;
+					for (int s = 0; s < others.length; s++) {
+						weights[k] += others[s] * interiorWeights[s + k];
+					}
+				}
+			} else {
+				for (int k = 0; k <= size; k++) {
+					weights[k] = Math.pow(density, k) * Math.pow(1 - density, size - k);
+				}
+			}
+
+			double total = 0;
+			for (int k = 0; k <= size; k++) total += component.solutions[k] * weights[k];
+
+			final int otherMin = minTotal - component.minMines;
+			final int otherMax = maxTotal - component.maxMines;
+			for (int i = 0; i < size; i++) {
+				double weight = 0;
+				boolean alwaysMine = true, neverMine = true;
+				for (int k = 0; k <= size; k++) {
+					if (component.solutions[k] == 0) continue;
+					weight += component.cellMines[k][i] * weights[k];
+					// only mine counts the rest of the board can make up decide a cell
+					if (!isPossible(k, remaining, interior, otherMin, otherMax)) continue;
+					if (component.cellMines[k][i] != 0) neverMine = false;
+					if (component.cellMines[k][i] != component.solutions[k]) alwaysMine = false;
+				}
+				probabilities[component.cells[i]] = total > 0 && !Double.isNaN(weight) ?
+						weight / total : density;
+				if (neverMine) setKnown(component.cells[i], SAFE);
+				else if (alwaysMine) setKnown(component.cells[i], MINE);
+			}
+		}
+
+		double interiorProbability = density;
+		if (combined && interior > 0) {
+			double[] distribution = convolve(components, -1);
+			double mines = 0, total = 0;
+			for (int s = 0; s < distribution.length; s++) {
+				mines += distribution[s] * interiorWeights[s] * (remaining - s);
+				total += distribution[s] * interiorWeights[s];
+			}
+			if (total > 0) interiorProbability = mines / total / interior;
+		}
+		// the frontier may hold every remaining mine or leave exactly enough for the interior
+		final boolean interiorSafe = remaining <= minTotal;
+		final boolean interiorMine = remaining - maxTotal >= interior;
+		for (int i = 0; i < known.length; i++) {
+			if (known[i] != UNKNOWN || frontier[i]) continue;
+			probabilities[i] = interiorProbability;
+			if (interiorSafe) setKnown(i, SAFE);
+			else if (interiorMine) setKnown(i, MINE);
+		}
+	}
+
+	// the other components must be able to hold between remaining - k - interior and
+	// remaining - k mines, checked against their combined range
+	private static boolean isPossible(int k, int remaining, int interior, int otherMin,
+			int otherMax) {
+		return Math.max(otherMin, remaining - k - interior) <= Math.min(otherMax, remaining - k);
+	}
+
+	// ways to place the other remaining - s mines in the interior, indexed by the frontier
+	// mines s and scaled so the largest is 1
+	private static double[] getInteriorWeights(int maxFrontier, int remaining, int interior) {
+		double[] weights = new double[maxFrontier + 1];
+		double max = Double.NEGATIVE_INFINITY;
+		// one binomial is summed out, each next one follows from C(n, m) = C(n, m + 1) *
+		// (m + 1) / (n - m), so a large interior is not summed again for every s
+		final int first = Math.max(0, remaining - interior);
+		for (int s = 0; s <= maxFrontier; s++) {
+			final int m = remaining - s;
+			if (s < first || m < 0) weights[s] = Double.NEGATIVE_INFINITY;
+			else if (s == first) weights[s] = logBinomial(interior, m);
+			else weights[s] = weights[s - 1] + Math.log((double)(m + 1) / (interior - m));
+			max = Math.max(max, weights[s]);
+		}
+		for (int s = 0; s <= maxFrontier; s++) {
+			weights[s] = max == Double.NEGATIVE_INFINITY ? 0 : Math.exp(weights[s] - max);
+		}
+		return weights;
+	}
+
+	private static double logBinomial(int n, int m) {
+		m = Math.min(m, n - m);
+		double log = 0;
+		for (int i = 0; i < m; i++) log += Math.log((double)(n - i) / (i + 1));
+		return log;
+	}
+
+	// distribution of the mines held by every component except skip
+	private static double[] convolve(List<Component> components, int skip) {
+		double[] distribution = {1};
+		for (int c = 0; c < components.size(); c++) {
+			if (c == skip) continue;
+			double[] counts = components.get(c).getDistribution();
+			double[] next = new double[distribution.length + counts.length - 1];
+			double max = 0;
+			for (int s = 0; s < distribution.length; s++) {
+				for (int k = 0; k < counts.length; k++) next[s + k] += distribution[s] * counts[k];
+			}
+			for (double value : next) max = Math.max(max, value);
+			for (int s = 0; s < next.length; s++) next[s] /= max;
+			distribution = next;
+		}
+		return distribution;
+	}
+}
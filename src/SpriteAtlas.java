@@ -0,0 +1,166 @@
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// decodes each icon set once and caches the scaled sprites for each (icon set, tile size)
+public class SpriteAtlas {
+	public static final int RESET_BUTTON_SIZE = 52; // 2x original reset button size
+	private static final int SCOREBOARD_NUMBERS_HEIGHT = 46; // 2x original scoreboard height
+	private static final int MAX_CACHED = 6; // scaled variants kept before the oldest is evicted
+
+	// icon sets decoded at their original size, with the scoreboard sprites already scaled
+	private final Map<String, IconSet> iconSets = new HashMap<>();
+
+	// least recently used sprites are evicted first
+	private final Map<String, Sprites> cache = new LinkedHashMap<String, Sprites>(16, 0.75f,
+			true) {
+		private static final long serialVersionUID = 4306931757217004529L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Sprites> eldest) {
+			return size() > MAX_CACHED;
+		}
+	};
+
+	private final GraphicsConfiguration config;
+
+	public SpriteAtlas() {
+		// images match the screen format so drawing them needs no conversion
+		config = GraphicsEnvironment.isHeadless() ? null : GraphicsEnvironment
+				.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+	}
+
+	public synchronized Sprites get(String iconSet, int tileSize) {
+		String key = iconSet + "@" + tileSize;
+		Sprites sprites = cache.get(key);
+		if (sprites == null) {
+			IconSet source = iconSets.get(iconSet);
+			if (source == null) iconSets.put(iconSet, source = new IconSet(iconSet));
+			cache.put(key, sprites = new Sprites(source, tileSize));
+		}
+		return sprites;
+	}
+
+	private BufferedImage createImage(int width, int height) {
+		if (config == null) return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		return config.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+	}
+
+	private BufferedImage read(String path) {
+		try {
+			BufferedImage image = ImageIO.read(getClass().getResource(path));
+			return scale(image, image.getWidth(), image.getHeight());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not load " + path, e);
+		}
+	}
+
+	private BufferedImage scale(BufferedImage image, int width, int height) {
+		BufferedImage scaled = createImage(width, height);
+		Graphics2D g2 = scaled.createGraphics();
+		// whole multiples keep the pixel art sharp, other sizes are smoothed
+		boolean whole = width % image.getWidth() == 0 && height % image.getHeight() == 0;
+		g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, whole ?
+				RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR :
+				RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g2.drawImage(image, 0, 0, width, height, null);
+		g2.dispose();
+		return scaled;
+	}
+
+	private class IconSet {
+		private final BufferedImage tile, revealedTile, mine, flag, unknown, mineSelected,
+				incorrectGuess;
+		private final BufferedImage reset, resetDown, resetTileDown, resetWin, resetLose;
+		private final BufferedImage[] numbers, scoreboardNumbers;
+
+		private IconSet(String iconSet) {
+			String iconSetDir = "/icons/" + iconSet + "/";
+
+			// the PNGs are decoded in parallel, in the order they are assigned below
+			String[] names = new String[7 + 8 + 5 + 11];
+			int n = 0;
+			for (String name : new String[] {"tile", "revealed_tile", "mine", "flag", "unknown",
+					"mine_selected", "incorrect_guess"}) names[n++] = name;
+			for (int i = 1; i <= 8; i++) names[n++] = "numbers/" + i;
+			for (String name : new String[] {"reset", "down", "tile_down", "win", "lose"}) {
+				names[n++] = "reset/" + name;
+			}
+			for (int i = 0; i < 10; i++) names[n++] = "scoreboard_numbers/" + i;
+			names[n] = "scoreboard_numbers/negative";
+			BufferedImage[] images = Arrays.stream(names).parallel()
+					.map(name -> read(iconSetDir + name + ".png")).toArray(BufferedImage[]::new);
+
+			n = 0;
+			tile = images[n++];
+			revealedTile = images[n++];
+			mine = images[n++];
+			flag = images[n++];
+			unknown = images[n++];
+			mineSelected = images[n++];
+			incorrectGuess = images[n++];
+
+			numbers = Arrays.copyOfRange(images, n, n += 8);
+
+			// the reset button and scoreboard do not zoom, so they are only scaled once
+			reset = scaleReset(images[n++]);
+			resetDown = scaleReset(images[n++]);
+			resetTileDown = scaleReset(images[n++]);
+			resetWin = scaleReset(images[n++]);
+			resetLose = scaleReset(images[n++]);
+
+			// ordered in increasing value (negative icon is last)
+			scoreboardNumbers = new BufferedImage[11];
+			for (int i = 0; i < scoreboardNumbers.length; i++) {
+				BufferedImage image = images[n++];
+				//keep aspect ratio of scoreboard numbers since not square
+				scoreboardNumbers[i] = scale(image, SCOREBOARD_NUMBERS_HEIGHT * image.getWidth() /
+						image.getHeight(), SCOREBOARD_NUMBERS_HEIGHT);
+			}
+		}
+
+		private BufferedImage scaleReset(BufferedImage image) {
+			return scale(image, RESET_BUTTON_SIZE, RESET_BUTTON_SIZE);
+		}
+	}
+
+	public class Sprites {
+		public final int tileSize;
+		public final BufferedImage tile, revealedTile, mine, flag, unknown, mineSelected,
+				incorrectGuess;
+		public final BufferedImage reset, resetDown, resetTileDown, resetWin, resetLose;
+		// ordered in increasing value (negative icon is last)
+		public final BufferedImage[] numbers, scoreboardNumbers;
+
+		private Sprites(IconSet source, int tileSize) {
+			this.tileSize = tileSize;
+			tile = scaleTile(source.tile);
+			revealedTile = scaleTile(source.revealedTile);
+			mine = scaleTile(source.mine);
+			flag = scaleTile(source.flag);
+			unknown = scaleTile(source.unknown);
+			mineSelected = scaleTile(source.mineSelected);
+			incorrectGuess = scaleTile(source.incorrectGuess);
+
+			numbers = new BufferedImage[source.numbers.length];
+			for (int i = 0; i < numbers.length; i++) numbers[i] = scaleTile(source.numbers[i]);
+
+			reset = source.reset;
+			resetDown = source.resetDown;
+			resetTileDown = source.resetTileDown;
+			resetWin = source.resetWin;
+			resetLose = source.resetLose;
+			scoreboardNumbers = source.scoreboardNumbers;
+		}
+
+		private BufferedImage scaleTile(BufferedImage image) {
+			return scale(image, tileSize, tileSize);
+		}
+	}
+}
@@ -0,0 +1,343 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// games played and won, streaks, best times and a time histogram for each board size
+//
+// every game is appended to a log of fixed size records, and a fixed layout summary of the
+// totals is kept in a memory-mapped file, so startup only reads the summary and any records
+// it has not seen. The log is compacted in the background once it grows large. Games come
+// from the game's events, queued to the thread that writes them, and only square boards count.
+public class Statistics implements AutoCloseable, GameEvents.Listener {
+	private static final int VERSION = 1;
+	private static final int SUMMARY_MAGIC = 0x4D53534D; // "MSSM"
+	private static final int LOG_MAGIC = 0x4D53534C; // "MSSL"
+
+	public static final int BEST_TIMES = 5;
+	// win times in powers of two: bucket 0 is under a second, bucket b is 2^(b-1) to 2^b - 1 s
+	public static final int HISTOGRAM_BUCKETS = 17;
+
+	// summary: int magic, int version, long log length summarized, then a slot per board size
+	private static final int MAX_SIZES = 256;
+	private static final int ROWS = 0, COLUMNS = 1, MINES = 2, PLAYED = 3, WON = 4, STREAK = 5,
+			BEST_STREAK = 6, BEST_TIME = 7, HISTOGRAM = BEST_TIME + BEST_TIMES;
+	private static final int SLOT_SIZE = (HISTOGRAM + HISTOGRAM_BUCKETS) * 4;
+	private static final int SUMMARY_HEADER_SIZE = 16;
+	private static final int SUMMARY_SIZE = SUMMARY_HEADER_SIZE + MAX_SIZES * SLOT_SIZE;
+
+	// log: int magic, int version, int snapshot size, int records already in the snapshot,
+	// then the snapshot (a summary of compacted games), then records
+	// record: long end time (epoch ms), int rows, columns, mines, time (ms), byte won, padding
+	private static final int LOG_HEADER_SIZE = 16;
+	private static final int RECORD_SIZE = 32;
+	private static final long COMPACT_SIZE = 1 << 20; // log size that triggers compaction
+	private static final int KEEP_RECENT = 1000; // records kept by compaction
+
+	public static class Entry {
+		public final int rows, columns, mines, played, won, streak, bestStreak;
+		public final int[] bestTimes; // ms, fastest first
+		public final int[] histogram;
+
+		private Entry(ByteBuffer summary, int slot) {
+			rows = summary.getInt(slot + ROWS * 4);
+			columns = summary.getInt(slot + COLUMNS * 4);
+			mines = summary.getInt(slot + MINES * 4);
+			played = summary.getInt(slot + PLAYED * 4);
+			won = summary.getInt(slot + WON * 4);
+			streak = summary.getInt(slot + STREAK * 4);
+			bestStreak = summary.getInt(slot + BEST_STREAK * 4);
+			int times = 0;
+			while (times < BEST_TIMES && summary.getInt(slot + (BEST_TIME + times) * 4) > 0) {
+				times++;
+			}
+			bestTimes = new int[times];
+			for (int i = 0; i < times; i++) {
+				bestTimes[i] = summary.getInt(slot + (BEST_TIME + i) * 4);
+			}
+			histogram = new int[HISTOGRAM_BUCKETS];
+			for (int i = 0; i < histogram.length; i++) {
+				histogram[i] = summary.getInt(slot + (HISTOGRAM + i) * 4);
+			}
+		}
+	}
+
+	private final Path logPath;
+	private FileChannel log;
+	private final FileChannel summaryChannel;
+	private final MappedByteBuffer summary; // guarded by this
+	private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+	// appends and compaction happen in order on one thread, away from the EDT
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "statistics");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// the current game's size, null if it isn't counted, only used on the writer thread
+	private Difficulty difficulty;
+
+	public Statistics(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		logPath = directory.resolve("statistics.log");
+		log = openLog(logPath);
+		summaryChannel = FileChannel.open(directory.resolve("statistics.summary"),
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		summary = summaryChannel.map(FileChannel.MapMode.READ_WRITE, 0, SUMMARY_SIZE);
+
+		// a record cut off by a crash is dropped so the next one lines up
+		final long dataStart = getDataStart();
+		final long size = dataStart + (log.size() - dataStart) / RECORD_SIZE * RECORD_SIZE;
+		if (size < log.size()) log.truncate(size);
+
+		final long summarized = summary.getLong(8);
+		if (summary.getInt(0) != SUMMARY_MAGIC || summary.getInt(4) != VERSION ||
+				summarized < dataStart || summarized > size) {
+			rebuild();
+		} else {
+			// games logged after the summary was last updated, before a crash
+			apply(summarized, size);
+		}
+		summary.putLong(8, size);
+	}
+
+	private static FileChannel openLog(Path path) throws IOException {
+		FileChannel log = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		if (log.size() == 0) {
+			ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+			header.putInt(LOG_MAGIC).putInt(VERSION).putInt(0).putInt(0).flip();
+			while (header.hasRemaining()) log.write(header, header.position());
+		}
+		ByteBuffer header = read(log, 0, LOG_HEADER_SIZE);
+		if (header.getInt(0) != LOG_MAGIC || header.getInt(4) != VERSION) {
+			log.close();
+			throw new IOException("Not a statistics log, or a newer version: " + path);
+		}
+		return log;
+	}
+
+	private long getDataStart() throws IOException {
+		return LOG_HEADER_SIZE + read(log, 8, 4).getInt(0);
+	}
+
+	private static ByteBuffer read(FileChannel channel, long position, int size)
+			throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Statistics log ends early");
+			}
+		}
+		return buffer.flip();
+	}
+
+	// recomputes the summary from the log's snapshot and records, only needed if the summary
+	// is missing or damaged
+	private void rebuild() throws IOException {
+		ByteBuffer header = read(log, 0, LOG_HEADER_SIZE);
+		final int snapshotSize = header.getInt(8), covered = header.getInt(12);
+		for (int i = 0; i < SUMMARY_SIZE; i += 4) summary.putInt(i, 0);
+		if (snapshotSize == SUMMARY_SIZE) {
+			summary.position(0);
+			summary.put(read(log, LOG_HEADER_SIZE, snapshotSize));
+			summary.position(0);
+		}
+		summary.putInt(0, SUMMARY_MAGIC).putInt(4, VERSION);
+		apply(getDataStart() + (long)covered * RECORD_SIZE, log.size());
+	}
+
+	// adds the records between two log positions to the summary
+	private void apply(long start, long end) throws IOException {
+		if (start >= end) return;
+		ByteBuffer records = read(log, start, (int)(end - start));
+		while (records.hasRemaining()) {
+			final int position = records.position();
+			records.getLong(); // end time
+			final int rows = records.getInt(), columns = records.getInt(), mines = records.getInt();
+			final int time = records.getInt();
+			final boolean won = records.get() != 0;
+			apply(rows, columns, mines, won, time);
+			records.position(position + RECORD_SIZE);
+		}
+	}
+
+	private void apply(int rows, int columns, int mines, boolean won, int time) {
+		final int slot = getSlot(rows, columns, mines);
+		if (slot < 0) return; // every slot is taken, the game is still in the log
+
+		add(slot + PLAYED * 4, 1);
+		if (!won) {
+			summary.putInt(slot + STREAK * 4, 0);
+			return;
+		}
+		add(slot + WON * 4, 1);
+		add(slot + STREAK * 4, 1);
+		summary.putInt(slot + BEST_STREAK * 4, Math.max(summary.getInt(slot + BEST_STREAK * 4),
+				summary.getInt(slot + STREAK * 4)));
+
+		// insertion into the sorted best times, 0 marks an empty place
+		final int times = slot + BEST_TIME * 4;
+		for (int i = 0; i < BEST_TIMES; i++) {
+			final int best = summary.getInt(times + i * 4);
+			if (best != 0 && best <= time) continue;
+			for (int j = BEST_TIMES - 1; j > i; j--) {
+				summary.putInt(times + j * 4, summary.getInt(times + (j - 1) * 4));
+			}
+			summary.putInt(times + i * 4, Math.max(time, 1));
+			break;
+		}
+
+		final int bucket = Math.min(32 - Integer.numberOfLeadingZeros(time / 1000),
+				HISTOGRAM_BUCKETS - 1);
+		add(slot + (HISTOGRAM + bucket) * 4, 1);
+	}
+
+	private void add(int position, int value) {
+		summary.putInt(position, summary.getInt(position) + value);
+	}
+
+	// offset of the slot for a board size, taking an empty one if it has none, -1 if full
+	private int getSlot(int rows, int columns, int mines) {
+		for (int i = 0; i < MAX_SIZES; i++) {
+			final int slot = SUMMARY_HEADER_SIZE + i * SLOT_SIZE;
+			final int slotRows = summary.getInt(slot + ROWS * 4);
+			if (slotRows == 0) {
+				summary.putInt(slot + ROWS * 4, rows).putInt(slot + COLUMNS * 4, columns)
+						.putInt(slot + MINES * 4, mines);
+				return slot;
+			}
+			if (slotRows == rows && summary.getInt(slot + COLUMNS * 4) == columns &&
+					summary.getInt(slot + MINES * 4) == mines) return slot;
+		}
+		return -1;
+	}
+
+	// GAME EVENTS
+	// delivered in order on the writer thread, so nothing is written on the EDT
+
+	public void subscribe(GameEvents events) {
+		events.subscribe(this, GameEvents.RESET | GameEvents.WON | GameEvents.LOST |
+				GameEvents.ABANDONED, writer);
+	}
+
+	@Override
+	public void gameReset(Board board) {
+		difficulty = board.getTopology() != Topology.SQUARE ? null :
+				new Difficulty(board.getRows(), board.getColumns(), board.getMines());
+	}
+
+	@Override
+	public void gameWon(long elapsedMillis) {
+		record(true, elapsedMillis);
+	}
+
+	@Override
+	public void gameLost(long elapsedMillis) {
+		record(false, elapsedMillis);
+	}
+
+	// a game abandoned after the first reveal counts as a loss
+	@Override
+	public void gameAbandoned(long elapsedMillis) {
+		record(false, elapsedMillis);
+	}
+
+	private void record(boolean won, long time) {
+		if (difficulty == null) return;
+		try {
+			// a compaction that failed to reopen the log is retried here
+			if (!log.isOpen()) log = openLog(logPath);
+			append(System.currentTimeMillis(), difficulty, won, (int)Math.min(time,
+					Integer.MAX_VALUE));
+			if (log.size() > COMPACT_SIZE) compact();
+		} catch (IOException ignored) {
+			// a game that could not be appended is not counted, a failed compaction is tried
+			// again after the next game
+		}
+	}
+
+	private void append(long endTime, Difficulty difficulty, boolean won, int time)
+			throws IOException {
+		record.clear();
+		record.putLong(endTime).putInt(difficulty.getRows()).putInt(difficulty.getColumns())
+				.putInt(difficulty.getMines()).putInt(time).put((byte)(won ? 1 : 0));
+		record.position(RECORD_SIZE).flip();
+		final long position = log.size();
+		while (record.hasRemaining()) log.write(record, position + record.position());
+
+		synchronized (this) {
+			apply(difficulty.getRows(), difficulty.getColumns(), difficulty.getMines(), won, time);
+			summary.putLong(8, position + RECORD_SIZE);
+		}
+	}
+
+	// rewrites the log as a snapshot of the summary and the most recent records, replacing it
+	// with an atomic rename so a crash leaves either the old log or the new one
+	private void compact() throws IOException {
+		ByteBuffer snapshot = ByteBuffer.allocate(SUMMARY_SIZE);
+		synchronized (this) {
+			snapshot.put(summary.duplicate().position(0).limit(SUMMARY_SIZE)).flip();
+		}
+		final long dataStart = getDataStart();
+		final long records = (log.size() - dataStart) / RECORD_SIZE;
+		final int kept = (int)Math.min(records, KEEP_RECENT);
+		ByteBuffer recent = read(log, log.size() - (long)kept * RECORD_SIZE, kept * RECORD_SIZE);
+
+		ByteBuffer header = ByteBuffer.allocate(LOG_HEADER_SIZE);
+		header.putInt(LOG_MAGIC).putInt(VERSION).putInt(SUMMARY_SIZE).putInt(kept).flip();
+		Path compacted = logPath.resolveSibling(logPath.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(compacted, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer[] buffers = {header, snapshot, recent};
+			while (header.hasRemaining() || snapshot.hasRemaining() || recent.hasRemaining()) {
+				channel.write(buffers);
+			}
+			channel.force(true);
+		}
+
+		log.close();
+		try {
+			Files.move(compacted, logPath, StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			// the old log is still whole if the move failed, so it is reopened either way
+			log = openLog(logPath);
+		}
+		synchronized (this) {
+			summary.putLong(8, log.size());
+		}
+	}
+
+	// totals for every board size played, in the order they were first played
+	public synchronized List<Entry> getEntries() {
+		List<Entry> entries = new ArrayList<>();
+		for (int i = 0; i < MAX_SIZES; i++) {
+			final int slot = SUMMARY_HEADER_SIZE + i * SLOT_SIZE;
+			if (summary.getInt(slot + ROWS * 4) == 0) break;
+			entries.add(new Entry(summary, slot));
+		}
+		return entries;
+	}
+
+	// waits for games still being written
+	@Override
+	public void close() throws IOException {
+		writer.shutdown();
+		try {
+			writer.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		log.close();
+		summaryChannel.close();
+	}
+}
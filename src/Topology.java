@@ -0,0 +1,168 @@
+import java.util.Arrays;
+
+// how the cells of a board are connected: a bounded square grid, a grid that wraps around at
+// the edges, hexagons (odd rows shifted half a tile right), or square grids stacked in layers
+//
+// cells with the same position relative to the edges (a corner, an edge or the interior, and
+// the row parity or layer) have their neighbours at the same index offsets, so a board keeps a
+// class per cell and one CSR table of offsets per class instead of a list per cell
+public class Topology {
+	private static final int GRID = 0, TORUS = 1, HEX = 2, LAYERED = 3;
+
+	public static final Topology SQUARE = new Topology(GRID, 1);
+	public static final Topology WRAPAROUND = new Topology(TORUS, 1);
+	public static final Topology HEXAGONAL = new Topology(HEX, 1);
+
+	private final int type;
+	private final int layers; // square grids stacked from top to bottom, each rows / layers high
+
+	private Topology(int type, int layers) {
+		this.type = type;
+		this.layers = layers;
+	}
+
+	public static Topology layered(int layers) {
+		if (layers < 1) throw new IllegalArgumentException("Invalid layers: " + layers);
+		return layers == 1 ? SQUARE : new Topology(LAYERED, layers);
+	}
+
+	// square, wraparound, hexagonal or layered:LAYERS
+	public static Topology parse(String name) {
+		switch (name) {
+			case "square": return SQUARE;
+			case "wraparound": return WRAPAROUND;
+			case "hexagonal": return HEXAGONAL;
+		}
+		if (name.startsWith("layered:")) return layered(Integer.parseInt(name.substring(8)));
+		throw new IllegalArgumentException("Unknown topology: " + name);
+	}
+
+	public String getName() {
+		switch (type) {
+			case TORUS: return "wraparound";
+			case HEX: return "hexagonal";
+			case LAYERED: return "layered:" + layers;
+			default: return "square";
+		}
+	}
+
+	public boolean isHexagonal() {
+		return type == HEX;
+	}
+
+	// the neighbours of cell i are i + offsets[k] for k from start[classes[i]] up to
+	// start[classes[i] + 1], in no particular order and never including i
+	public static class Table {
+		public final byte[] classes;
+		public final int[] start;
+		public final int[] offsets;
+
+		private Table(byte[] classes, int[] start, int[] offsets) {
+			this.classes = classes;
+			this.start = start;
+			this.offsets = offsets;
+		}
+
+		public int getStart(int cell) {
+			return start[classes[cell]];
+		}
+		public int getEnd(int cell) {
+			return start[classes[cell] + 1];
+		}
+	}
+
+	public Table build(int rows, int columns) {
+		if (rows % layers != 0) {
+			throw new IllegalArgumentException(rows + " rows can't be split into " + layers +
+					" layers");
+		}
+		final int layerRows = rows / layers;
+		final int cells = rows * columns;
+		byte[] classes = new byte[cells];
+
+		// at most 4 positions across the layers, rows and columns (first, middle, last or only),
+		// and 2 row parities, whose offsets are found from the first cell seen in each
+		final int maxClasses = 4 * 4 * 4 * 2;
+		int[][] classOffsets = new int[maxClasses][];
+		byte[] ids = new byte[maxClasses];
+		Arrays.fill(ids, (byte)-1);
+		int count = 0, size = 0;
+		for (int i = 0; i < cells; i++) {
+			final int row = i / columns, col = i % columns;
+			final int layer = row / layerRows, layerRow = row % layerRows;
+			int key = position(layer, layers) * 4 + position(layerRow, layerRows);
+			key = key * 4 + position(col, columns);
+			if (type == HEX) key = key * 2 + (row & 1);
+			if (ids[key] < 0) {
+				ids[key] = (byte)count++;
+				classOffsets[ids[key]] = getOffsets(rows, columns, layerRows, row, col);
+				size += classOffsets[ids[key]].length;
+			}
+			classes[i] = ids[key];
+		}
+
+		int[] start = new int[count + 1];
+		int[] offsets = new int[size];
+		for (int k = 0; k < count; k++) {
+			start[k + 1] = start[k] + classOffsets[k].length;
+			System.arraycopy(classOffsets[k], 0, offsets, start[k], classOffsets[k].length);
+		}
+		return new Table(classes, start, offsets);
+	}
+
+	// first, middle, last or only
+	private static int position(int i, int size) {
+		if (size == 1) return 3;
+		return i == 0 ? 0 : i == size - 1 ? 2 : 1;
+	}
+
+	// index offsets of the neighbours of one cell, found with bounds checks and wrapping
+	private int[] getOffsets(int rows, int columns, int layerRows, int row, int col) {
+		final int cell = row * columns + col;
+		int[] offsets = new int[26];
+		int count = 0;
+		if (type == HEX) {
+			// odd rows are shifted right, so their diagonal neighbours are one column further
+			final int shift = row & 1;
+			final int[][] steps = {{-1, shift - 1}, {-1, shift}, {0, -1}, {0, 1}, {1, shift - 1},
+					{1, shift}};
+			for (int[] step : steps) {
+				final int r = row + step[0], c = col + step[1];
+				if (r < 0 || c < 0 || r >= rows || c >= columns) continue;
+				offsets[count++] = r * columns + c - cell;
+			}
+			return Arrays.copyOf(offsets, count);
+		}
+
+		final int layer = row / layerRows, layerRow = row % layerRows;
+		final int layerSteps = type == LAYERED ? 1 : 0;
+		for (int dl = -layerSteps; dl <= layerSteps; dl++) {
+			for (int dr = -1; dr <= 1; dr++) {
+				for (int dc = -1; dc <= 1; dc++) {
+					int l = layer + dl, r = layerRow + dr, c = col + dc;
+					if (type == TORUS) {
+						r = (r + layerRows) % layerRows;
+						c = (c + columns) % columns;
+					}
+					if (l < 0 || r < 0 || c < 0 || l >= layers || r >= layerRows ||
+							c >= columns) continue;
+					final int offset = (l * layerRows + r) * columns + c - cell;
+					// small wrapped boards reach the same cell more than once, or the cell itself
+					boolean seen = offset == 0;
+					for (int k = 0; k < count && !seen; k++) seen = offsets[k] == offset;
+					if (!seen) offsets[count++] = offset;
+				}
+			}
+		}
+		return Arrays.copyOf(offsets, count);
+	}
+
+	// most neighbours any cell can have
+	public int getMaxNeighbours() {
+		switch (type) {
+			case HEX: return 6;
+			case LAYERED: return 26;
+			default: return 8;
+		}
+	}
+}